@@ -1,7 +1,8 @@
 package com.fbo;
 
+import com.fbo.config.GameConfig;
 import com.fbo.graphics.AssetManager;
-import javafx.scene.canvas.GraphicsContext;
+import com.fbo.graphics.RenderCommandBuffer;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 
@@ -30,7 +31,7 @@ public class Bird {
     public void update(double dt) {
         stateTime += dt;
 
-        vy += 900 * dt;
+        vy += GameConfig.GRAVITY * dt;
         y += vy * dt;
 
         if (flapTimer > 0) flapTimer = Math.max(0.0, flapTimer - dt);
@@ -42,7 +43,7 @@ public class Bird {
     }
 
  
-    public void render(GraphicsContext gc) {
+    public void render(RenderCommandBuffer r) {
         double cx = x + size / 2.0;
         double cy = y + size / 2.0;
 
@@ -69,24 +70,24 @@ public class Bird {
         double alpha = 1.0;
         if (deathFading) alpha = Math.max(0.0, 1.0 - deathFadeTime / deathFadeDuration);
 
-        gc.save();
-        gc.translate(cx, cy + bob);
-        gc.rotate(angle);
-        gc.setGlobalAlpha(alpha);
+        r.save();
+        r.translate(cx, cy + bob);
+        r.rotate(angle);
+        r.setGlobalAlpha(alpha);
 
         if (sprite != null) {
-            gc.drawImage(sprite, -size / 2.0, -size / 2.0, size, size);
+            r.drawImage(sprite, -size / 2.0, -size / 2.0, size, size);
         } else {
-            gc.setFill(Color.YELLOW);
-            gc.fillOval(-size / 2.0, -size / 2.0, size, size);
+            r.setFill(Color.YELLOW);
+            r.fillOval(-size / 2.0, -size / 2.0, size, size);
         }
 
-        gc.setGlobalAlpha(1.0);
-        gc.restore();
+        r.setGlobalAlpha(1.0);
+        r.restore();
     }
 
     public void flap() {
-        vy = -320;
+        vy = GameConfig.FLAP_STRENGTH;
         flapTimer = flapImpulseDuration;
     }
 
@@ -99,9 +100,20 @@ public class Bird {
         stateTime = 0;
     }
 
+    public void copyFrom(Bird other) {
+        x = other.x;
+        y = other.y;
+        vy = other.vy;
+        stateTime = other.stateTime;
+        flapTimer = other.flapTimer;
+        deathFading = other.deathFading;
+        deathFadeTime = other.deathFadeTime;
+    }
+
     public void setX(double x) { this.x = x; }
     public double getX() { return x; }
     public double getY() { return y; }
+    public double getVy() { return vy; }
     public double getSize() { return size; }
     public double getCenterX() { return x + size / 2.0; }
     public double getCenterY() { return y + size / 2.0; }
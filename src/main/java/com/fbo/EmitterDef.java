@@ -0,0 +1,110 @@
+package com.fbo;
+
+import javafx.scene.paint.Color;
+
+public final class EmitterDef {
+    public static final int PRIORITY_AMBIENT = 0;
+    public static final int PRIORITY_TRAIL = 1;
+    public static final int PRIORITY_BURST = 2;
+    public static final int PRIORITY_DEATH = 3;
+    public static final int PRIORITY_COUNT = 4;
+
+    private static final int PALETTE_SIZE = 8;
+
+    public static final EmitterDef FLAP_DUST = new EmitterDef("flap-dust", PRIORITY_TRAIL)
+            .burst(4).rate(110, 0.12)
+            .life(0.25, 0.5).speed(50, 140).direction(160, 50).gravity(-40).spawnJitter(6, 10)
+            .size(2.5, 5.5).alpha(0.55, 0.0).curve(1.5)
+            .color(35, 45, 0.3, 0.95);
+
+    public static final EmitterDef SCORE_BURST = new EmitterDef("score-burst", PRIORITY_BURST)
+            .burst(10)
+            .life(0.45, 0.8).speed(90, 220).direction(270, 140).gravity(260).spawnJitter(4, 4)
+            .size(18, 6).alpha(1.0, 0.0).curve(2.0)
+            .color(45, 60, 0.8, 1.0).sprite();
+
+    public static final EmitterDef AMBIENT_MOTES = new EmitterDef("ambient-motes", PRIORITY_AMBIENT)
+            .rate(6, -1)
+            .life(4.0, 7.0).speed(10, 28).direction(200, 40).gravity(0)
+            .size(1.5, 2.5).alpha(0.35, 0.0).curve(1.0)
+            .color(190, 220, 0.15, 1.0);
+
+    public static final EmitterDef DEATH_DEBRIS = new EmitterDef("death-debris", PRIORITY_DEATH)
+            .burst(18)
+            .life(0.7, 2.0).speed(120, 400).direction(0, 360).lift(-100).gravity(900)
+            .size(6, 6).alpha(1.0, 0.0).curve(1.0)
+            .color(10, 70, 0.9, 0.9);
+
+    final String name;
+    final int priority;
+
+    int burst = 0;
+    double rate = 0;
+    // seconds the emitter keeps spawning at rate; negative runs until stopped
+    double duration = 0;
+    double lifeMin = 1, lifeMax = 1;
+    double speedMin = 0, speedMax = 0;
+    double directionDeg = 0, spreadDeg = 360;
+    double lift = 0;
+    double gravity = 0;
+    double jitterX = 0, jitterY = 0;
+    double sizeStart = 4, sizeEnd = 4;
+    double alphaStart = 1, alphaEnd = 0;
+    double curvePower = 1;
+    boolean sprite = false;
+
+    final Color[] palette = new Color[PALETTE_SIZE];
+    final int[] paletteRgb = new int[PALETTE_SIZE];
+
+    private EmitterDef(String name, int priority) {
+        this.name = name;
+        this.priority = priority;
+        color(0, 0, 0, 1);
+    }
+
+    private EmitterDef burst(int count) { this.burst = count; return this; }
+
+    private EmitterDef rate(double perSecond, double seconds) { this.rate = perSecond; this.duration = seconds; return this; }
+
+    private EmitterDef life(double min, double max) { this.lifeMin = min; this.lifeMax = max; return this; }
+
+    private EmitterDef speed(double min, double max) { this.speedMin = min; this.speedMax = max; return this; }
+
+    private EmitterDef direction(double deg, double spread) { this.directionDeg = deg; this.spreadDeg = spread; return this; }
+
+    private EmitterDef lift(double vy) { this.lift = vy; return this; }
+
+    private EmitterDef gravity(double g) { this.gravity = g; return this; }
+
+    private EmitterDef spawnJitter(double x, double y) { this.jitterX = x; this.jitterY = y; return this; }
+
+    private EmitterDef size(double start, double end) { this.sizeStart = start; this.sizeEnd = end; return this; }
+
+    private EmitterDef alpha(double start, double end) { this.alphaStart = start; this.alphaEnd = end; return this; }
+
+    private EmitterDef curve(double power) { this.curvePower = power; return this; }
+
+    private EmitterDef sprite() { this.sprite = true; return this; }
+
+    private EmitterDef color(double hueMin, double hueMax, double saturation, double brightness) {
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            double hue = hueMin + (hueMax - hueMin) * i / (PALETTE_SIZE - 1);
+            Color c = Color.hsb(hue, saturation, brightness);
+            palette[i] = c;
+            paletteRgb[i] = ((int) Math.round(c.getRed() * 255) << 16)
+                    | ((int) Math.round(c.getGreen() * 255) << 8)
+                    | (int) Math.round(c.getBlue() * 255);
+        }
+        return this;
+    }
+
+    int paletteSize() { return PALETTE_SIZE; }
+
+    double sample(double start, double end, double t) {
+        return start + (end - start) * Math.pow(t, curvePower);
+    }
+
+    public String getName() { return name; }
+
+    public int getPriority() { return priority; }
+}
@@ -1,23 +1,36 @@
 package com.fbo;
 
+import com.fbo.audio.InterstitialPipeline;
 import com.fbo.audio.SoundManager;
+import com.fbo.bench.ScriptedSession;
 import com.fbo.config.GameConfig;
+import com.fbo.events.EventProcessor;
+import com.fbo.events.GameEventBus;
+import com.fbo.events.GameTelemetry;
+import com.fbo.ghost.GhostRace;
+import com.fbo.ghost.GhostRecorder;
+import com.fbo.ghost.GhostRun;
+import com.fbo.ghost.GhostStore;
 import com.fbo.graphics.AssetManager;
+import com.fbo.graphics.RenderCommandBuffer;
+import com.fbo.graphics.RenderExecutor;
+import com.fbo.level.Course;
+import com.fbo.level.LevelGenerator;
+import com.fbo.perf.HitchAnalyzer;
+import com.fbo.perf.InputLatency;
+import com.fbo.sim.InputScheduler;
+import com.fbo.sim.SimulationThread;
+import com.fbo.sim.TripleBuffer;
+import com.fbo.sim.WorldSnapshot;
+import com.fbo.util.StartupTrace;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.geometry.Insets;
-import javafx.geometry.Pos;
+import javafx.collections.ListChangeListener;
 import javafx.geometry.Rectangle2D;
-import javafx.scene.CacheHint;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.control.Button;
-import javafx.scene.control.Label;
-import javafx.scene.control.TextField;
-import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
@@ -33,56 +46,118 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
-public class FlappyBirdFX extends Application {
+public class FlappyBirdFX extends Application implements SimulationThread.World, ScriptedSession.Game {
+    // shared by every session in the JVM: one leaderboard and one set of recorded runs per machine
+    private static final Path highscoresFilePath = Paths.get(System.getProperty("user.home"), ".flappybirdfx", "highscores.properties");
+    private static final HashMap<String, Integer> highscores = new HashMap<>();
+    private static boolean highscoresLoaded = false;
+    private static final GhostStore ghostStore = new GhostStore(highscoresFilePath.resolveSibling("ghosts"), GameConfig.MAX_GHOSTS);
+    // ghosts are only recorded, stored and raced on a fixed or daily seed
+    private static final boolean RACE_GHOSTS = LevelGenerator.seedRepeats();
+    private static final AtomicInteger sessionCount = new AtomicInteger();
+
+    static {
+        StartupTrace.mark("app_class");
+    }
+
     private final Random rand = new Random();
 
     private Canvas canvas;
     private GraphicsContext gc;
+    private final RenderCommandBuffer frame = new RenderCommandBuffer();
+    private final RenderExecutor renderer = new RenderExecutor();
     private StackPane rootPane;
 
     private double birdX;
     private Bird player;
-    private final Deque<PipePair> pipes = new ArrayDeque<>();
-    private final ArrayDeque<PipePair> pipePool = new ArrayDeque<>();
+    private final ObstacleRing pipes = new ObstacleRing(GameConfig.OBSTACLE_CAPACITY);
+    private final LevelGenerator levels = new LevelGenerator(LevelGenerator.seedFromConfig(), GameConfig.LEVEL_LOOKAHEAD_CHUNKS);
+    private final Course course = new Course(pipes);
 
     private ParticleSystem particles;
 
-    private int score = 0;
-    private boolean gameOver = false;
-    private boolean paused = false;
+    private final GhostRecorder recorder = new GhostRecorder();
+    private final GhostRace ghosts = new GhostRace(GameConfig.MAX_GHOSTS);
+    private final AtomicReference<GhostRun> finishedRun = new AtomicReference<>();
+    // the persistence thread loads the next level's ghosts while this one is played; a race only uses them
+    // when they are for its seed
+    private volatile long ghostsWanted;
+    private final AtomicReference<GhostStore.Loaded> loadedGhosts = new AtomicReference<>();
+
+    // written by the simulation, read by input handlers and render on the FX thread when SIM_THREAD is on
+    private volatile int score = 0;
+    private volatile boolean gameOver = false;
+    private volatile boolean paused = false;
     private boolean showHighscorePage = false;
-    private boolean interstitialActive = false;
+    private volatile boolean interstitialActive = false;
 
     private int shakeFrames = 0;
     private double shakeX = 0, shakeY = 0;
 
     private MediaView mediaView;
-    private MediaPlayer interstitialVideoPlayer;
     private Pane interstitialContainer;
+    private InterstitialPipeline interstitial;
+
+    private final LayoutCache layout = new LayoutCache();
+    private WidgetLayer widgets;
+    private OverlayDialogs dialogs;
+
+    private final GameEventBus events = new GameEventBus(1024);
+    private final GameTelemetry telemetry = new GameTelemetry();
+    private EventProcessor audioEvents;
+    private EventProcessor persistenceEvents;
+    private EventProcessor frameEvents;
+
+    private static final int CMD_FLAP = 1;
+    private static final int CMD_RESET = 2;
+    private static final int CMD_SAVE_HIGHSCORES = 3;
+
+    private SimulationThread simulation;
+    private AnimationTimer frameTimer;
+    private WorldSnapshot localView;
+    private ScriptedSession script;
+    private HitchAnalyzer hitches;
+    // flaps wait here for the frame's update when the simulation runs on the FX thread
+    private InputScheduler localInputs;
+    // frame time not yet stepped: the FX thread steps the world on the simulation thread's fixed tick too, so a
+    // run plays, and replays as a ghost, the same at any refresh rate
+    private static final long TICK_NANOS = 1_000_000_000L / GameConfig.SIM_TICK_HZ;
+    private long unsteppedNanos;
+    private final InputLatency latency = new InputLatency(256);
+    // arrival time of the last flap the world applied, carried into snapshots so render can tell when it shows
+    private long lastFlapInput;
+    // where in the coming tick the player flapped, as a fraction of it; negative when they haven't
+    private double flapAt = -1;
+    private boolean invulnerable = false;
+    private Boolean forcedInterstitials;
 
     private Stage primaryStageRef;
 
-    private String currentUser = "Player";
-    private final HashMap<String, Integer> highscores = new HashMap<>();
+    private int sessionIndex;
+    private boolean stopped = false;
+    private volatile String currentUser = "Player";
+    private volatile double difficultyMultiplier = 1.0;
 
     private AssetManager assets;
     private SoundManager sound;
 
     private double totalPlayTime = 0;
-    private double screenW, screenH;
+    // ticks of play so far; what ghosts are recorded and replayed against
+    private int playTicks = 0;
+    private volatile double screenW, screenH;
 
     private static final int INTERSTITIAL_CHECK_INTERVAL = 5;
     private static final double INTERSTITIAL_PROBABILITY = 0.30;
+    private static final int INTERSTITIAL_PREROLL_LEAD = 2;
 
     private int lastInterstitialScore = -999;
 
-    private boolean showMainMenu = true;
+    private volatile boolean showMainMenu = true;
     private boolean pausedBeforeMenu = false;
 
-    private Path highscoresFilePath;
-
     public static void main(String[] args) {
         launch(args);
     }
@@ -90,88 +165,324 @@ public class FlappyBirdFX extends Application {
     @Override
     public void start(Stage primaryStage) {
         this.primaryStageRef = primaryStage;
+        sessionIndex = sessionCount.getAndIncrement();
+        if (sessionIndex == 0) StartupTrace.mark("app_start");
+        if (sessionIndex > 0) currentUser = "Player " + (sessionIndex + 1);
+        // builds the first level's opening chunk while assets load
+        levels.start();
 
         assets = AssetManager.get();
-        sound = SoundManager.get();
+        if (sessionIndex == 0) StartupTrace.mark("assets_loaded");
+        if (GameConfig.ASSET_REPORT && sessionIndex == 0) System.out.print(assets.images.report());
+        sound = new SoundManager();
 
-        primaryStage.setTitle("Flappy Bird FX — Interstitial Edition");
+        primaryStage.setTitle(sessionIndex == 0 ? "Flappy Bird FX — Interstitial Edition"
+                : "Flappy Bird FX — Interstitial Edition (" + (sessionIndex + 1) + ")");
 
         rootPane = new StackPane();
         Scene scene = new Scene(rootPane, 700, 900);
         canvas = new Canvas();
         canvas.widthProperty().bind(scene.widthProperty());
         canvas.heightProperty().bind(scene.heightProperty());
-        rootPane.getChildren().add(canvas);
+        Canvas widgetCanvas = new Canvas();
+        widgetCanvas.widthProperty().bind(scene.widthProperty());
+        widgetCanvas.heightProperty().bind(scene.heightProperty());
+        rootPane.getChildren().addAll(canvas, widgetCanvas);
 
         gc = canvas.getGraphicsContext2D();
 
-        highscoresFilePath = Paths.get(System.getProperty("user.home"), ".flappybirdfx", "highscores.properties");
         loadHighscores();
 
-        assets.loadAll();
         sound.init(assets);
-        particles = new ParticleSystem();
+        if (sessionIndex == 0) StartupTrace.mark("sound_ready");
+        interstitial = new InterstitialPipeline(assets.interstitialVideo, sound.getInterstitialAudio());
+        particles = new ParticleSystem(assets.particle);
+        particles.startAmbient();
+        widgets = new WidgetLayer(widgetCanvas, assets);
+        dialogs = new OverlayDialogs(rootPane, assets);
+        initEvents();
 
-        initPool();
         initGame();
+        if (sessionIndex == 0) hitches = HitchAnalyzer.get();
+        if (GameConfig.BENCHMARK_SCRIPT != null && sessionIndex == 0) script = new ScriptedSession(this, GameConfig.BENCHMARK_SCRIPT);
 
         showMainMenu = true;
         pausedBeforeMenu = paused;
         paused = true;
 
+        if (GameConfig.SIM_THREAD) {
+            simulation = new SimulationThread(this, GameConfig.SIM_TICK_HZ, new TripleBuffer<>(() -> new WorldSnapshot(assets)));
+            simulation.start();
+        } else {
+            localInputs = new InputScheduler(this, 256);
+            localView = new WorldSnapshot(assets);
+        }
+
         scene.setOnKeyPressed(e -> handleInput(e.getCode()));
         scene.addEventFilter(MouseEvent.MOUSE_MOVED, e -> handleMouseMoved(e.getX(), e.getY()));
         scene.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> handleMousePressed(e.getX(), e.getY()));
         scene.addEventFilter(MouseEvent.MOUSE_RELEASED, e -> handleMouseReleased(e.getX(), e.getY()));
 
-        canvas.widthProperty().addListener((obs, oldV, newV) -> {
-            screenW = newV.doubleValue();
-            layoutInterstitialVideoOnResize();
-        });
-        canvas.heightProperty().addListener((obs, oldV, newV) -> {
-            screenH = newV.doubleValue();
-            layoutInterstitialVideoOnResize();
-        });
+        canvas.widthProperty().addListener((obs, oldV, newV) -> layout.invalidate());
+        canvas.heightProperty().addListener((obs, oldV, newV) -> layout.invalidate());
+        primaryStage.xProperty().addListener((obs, oldV, newV) -> layout.invalidateScreen());
+        primaryStage.yProperty().addListener((obs, oldV, newV) -> layout.invalidateScreen());
+        primaryStage.outputScaleXProperty().addListener((obs, oldV, newV) -> layout.invalidateScreen());
+        primaryStage.outputScaleYProperty().addListener((obs, oldV, newV) -> layout.invalidateScreen());
+        Screen.getScreens().addListener((ListChangeListener<Screen>) c -> layout.invalidateScreen());
 
-        new AnimationTimer() {
+        frameTimer = new AnimationTimer() {
             long last = 0;
             @Override
             public void handle(long now) {
+                boolean first = last == 0 && sessionIndex == 0;
+                if (first) StartupTrace.mark("first_handle");
+                if (hitches != null) hitches.frame(now, score);
+                latency.pulse();
                 if (last == 0) last = now;
+                long previous = last;
                 double dt = Math.min(0.033, (now - last) / 1e9);
                 last = now;
+                if (script != null) {
+                    dt = ScriptedSession.DT;
+                    script.beforeFrame();
+                }
 
                 screenW = canvas.getWidth();
                 screenH = canvas.getHeight();
+                applyLayout();
+
+                WorldSnapshot view;
+                if (simulation != null) {
+                    view = simulation.latest();
+                } else {
+                    unsteppedNanos += Math.round(dt * 1e9);
+                    int ticks = (int) (unsteppedNanos / TICK_NANOS);
+                    unsteppedNanos -= ticks * TICK_NANOS;
+                    localInputs.step(previous, now, ticks, 1.0 / GameConfig.SIM_TICK_HZ);
+                    capture(localView);
+                    view = localView;
+                }
 
-                update(dt);
-                render();
+                frameEvents.drain();
+                if (!interstitialActive) particles.update(dt, screenW, screenH);
+                frame.reset();
+                render(frame, view);
+                renderer.replay(frame, gc, screenW, screenH);
+                latency.rendered(view.flapInputNanos);
+                if (script != null) script.afterFrame(now);
+
+                if (first && GameConfig.EXIT_AFTER_FIRST_FRAME) {
+                    StartupTrace.mark("first_render");
+                    System.out.println(StartupTrace.line());
+                    System.out.println("First frame rendered");
+                    // after this pulse has drawn the scene; the CDS archive is written as the VM exits
+                    Platform.runLater(() -> System.exit(0));
+                }
             }
-        }.start();
+        };
+        frameTimer.start();
 
         primaryStage.setScene(scene);
+        // sessions opened by openSessions() are not Applications FX knows about, so nothing else would stop them
+        primaryStage.setOnHidden(e -> stop());
         primaryStage.show();
+
+        if (sessionIndex == 0) openSessions(GameConfig.SESSIONS - 1);
+    }
+
+    // one extra window per cabinet screen, each a full game of its own sharing this JVM's assets
+    private void openSessions(int count) {
+        List<Screen> screens = Screen.getScreens();
+        for (int i = 1; i <= count; i++) {
+            Stage stage = new Stage();
+            Rectangle2D bounds = screens.get(i % screens.size()).getVisualBounds();
+            stage.setX(bounds.getMinX() + (screens.size() > 1 ? 0 : 40 * i));
+            stage.setY(bounds.getMinY() + (screens.size() > 1 ? 0 : 40 * i));
+            try {
+                new FlappyBirdFX().start(stage);
+            } catch (Exception e) {
+                System.err.println("Failed to open session " + (i + 1) + ": " + e.getMessage());
+            }
+        }
     }
 
     @Override
     public void stop() {
+        if (stopped) return;
+        stopped = true;
+        if (frameTimer != null) frameTimer.stop();
+        if (simulation != null) simulation.halt();
+        levels.halt();
+        if (audioEvents != null) audioEvents.halt();
+        if (persistenceEvents != null) persistenceEvents.halt();
         saveHighscores();
         try {
-            if (interstitialVideoPlayer != null) {
-                interstitialVideoPlayer.stop();
-                interstitialVideoPlayer.dispose();
-            }
+            if (interstitial != null) interstitial.release();
         } catch (Exception ignored) {}
         try {
             if (sound != null) {
                 sound.endInterstitial();
+                sound.release();
             }
         } catch (Exception ignored) {}
     }
 
+    private void initEvents() {
+        audioEvents = events.subscribe((type, eventScore, flags, x, y, value) -> {
+            switch (type) {
+                case GameEventBus.FLAP: sound.playSfx("flap"); break;
+                case GameEventBus.SCORE: sound.playSfx("score"); break;
+                case GameEventBus.DEATH: sound.playDeath(); break;
+            }
+        });
+        audioEvents.start("game-events-audio", 500_000L);
+
+        persistenceEvents = events.subscribe((type, eventScore, flags, x, y, value) -> {
+            if (type == GameEventBus.HIGHSCORES_CHANGED) saveHighscores();
+            if (type == GameEventBus.GHOSTS_WANTED) loadGhosts();
+            if (type != GameEventBus.DEATH) return;
+            if ((flags & GameEventBus.FLAG_NEW_HIGHSCORE) != 0) saveHighscores();
+            GhostRun run = finishedRun.getAndSet(null);
+            if (run != null) {
+                long t = HitchAnalyzer.begin();
+                ghostStore.submit(run);
+                HitchAnalyzer.end(HitchAnalyzer.IO, "ghost store", t);
+                // with a fixed seed the next level is this one, and its ghosts should include the run just made
+                if (run.seed == ghostsWanted) loadGhosts();
+            }
+        });
+        persistenceEvents.start("game-events-persistence", 20_000_000L);
+
+        frameEvents = events.subscribe((type, eventScore, flags, x, y, value) -> {
+            telemetry.onEvent(type, eventScore, flags, x, y, value);
+            switch (type) {
+                case GameEventBus.FLAP:
+                    particles.spawnFlapTrail(x, y);
+                    break;
+                case GameEventBus.SCORE:
+                    particles.spawnScoreBurst(x, y);
+                    break;
+                case GameEventBus.DEATH:
+                    particles.spawnDeathEffect(x, y, value);
+                    break;
+                case GameEventBus.INTERSTITIAL_CHECK:
+                    maybeTriggerInterstitial(eventScore);
+                    maybePrerollInterstitial(eventScore);
+                    break;
+            }
+        });
+    }
+
+    // stamped on arrival and applied where it falls inside the tick, not at whatever point of the frame the event
+    // happened to be dispatched
+    private void flap() {
+        long arrived = System.nanoTime();
+        if (simulation != null) simulation.submit(CMD_FLAP, arrived);
+        else localInputs.submit(CMD_FLAP, arrived);
+    }
+
+    private void applyFlap(long arrived, double at) {
+        lastFlapInput = arrived;
+        // a second flap inside the same tick folds into the first, as a ghost can only replay one
+        if (flapAt < 0) {
+            flapAt = at;
+            if (RACE_GHOSTS) recorder.flap(playTicks, at);
+        }
+        events.publish(GameEventBus.FLAP, score, 0, player.getX(), player.getCenterY(), 0);
+    }
+
+    @Override
+    public void applyCommand(int command, long timestampNanos, double at) {
+        switch (command) {
+            case CMD_FLAP:
+                if (!gameOver && !paused) applyFlap(timestampNanos, at);
+                break;
+            case CMD_RESET:
+                resetWorld();
+                break;
+            case CMD_SAVE_HIGHSCORES:
+                events.publish(GameEventBus.HIGHSCORES_CHANGED, score);
+                break;
+        }
+    }
+
+    @Override
+    public void step(double dt) {
+        update(dt);
+    }
+
+    @Override
+    public void capture(WorldSnapshot into) {
+        into.tick++;
+        into.score = score;
+        into.gameOver = gameOver;
+        into.totalPlayTime = totalPlayTime;
+        into.flapInputNanos = lastFlapInput;
+        into.shakeX = shakeX;
+        into.shakeY = shakeY;
+        into.bird.copyFrom(player);
+        into.obstacles.copyFrom(pipes);
+        into.ghosts.copyFrom(ghosts);
+    }
+
+    @Override
+    public void pressKey(KeyCode code) {
+        handleInput(code);
+    }
+
+    @Override
+    public void startFromMenu() {
+        resetGame();
+        showMainMenu = false;
+        paused = false;
+    }
+
+    @Override
+    public void openMenu() {
+        if (!showMainMenu) toggleMainMenu();
+    }
+
+    @Override
+    public void setInvulnerable(boolean invulnerable) {
+        this.invulnerable = invulnerable;
+    }
+
+    @Override
+    public void forceInterstitials(Boolean show) {
+        forcedInterstitials = show;
+    }
+
+    @Override
+    public boolean isGameOver() { return gameOver; }
+
+    @Override
+    public boolean isInterstitialActive() { return interstitialActive; }
+
+    @Override
+    public int getScore() { return score; }
+
+    @Override
+    public Bird getBird() { return player; }
+
+    @Override
+    public ObstacleRing getObstacles() { return pipes; }
+
+    @Override
+    public RenderExecutor getRenderer() { return renderer; }
+
     private void handleInput(KeyCode code) {
+        if (code == KeyCode.F9) {
+            reportPerformance();
+            return;
+        }
         if (interstitialActive) return;
 
+        if (dialogs.isOpen()) {
+            if (code == KeyCode.ESCAPE) dialogs.close();
+            return;
+        }
+
         if (code == KeyCode.M) {
             toggleMainMenu();
             return;
@@ -190,8 +501,7 @@ public class FlappyBirdFX extends Application {
 
         if (!gameOver) {
             if (code == KeyCode.SPACE) {
-                player.flap();
-                sound.playSfx("flap");
+                flap();
             }
         } else {
             if (code == KeyCode.SPACE) resetGame();
@@ -200,105 +510,53 @@ public class FlappyBirdFX extends Application {
     }
 
     private void handleMouseMoved(double mx, double my) {
-        if (showMainMenu) {
-            String id = UI.mainMenuButtonIdAt(mx, my);
-            if (id != null) UI.hoveredButtonId = id;
-            else {
-                int diffIdx = UI.difficultyButtonIndexAt(mx, my, screenW, screenH);
-                if (diffIdx >= 0) UI.hoveredButtonId = "difficulty-" + diffIdx;
-                else UI.hoveredButtonId = null;
-            }
-        } else {
-            int diffIdx = UI.difficultyButtonIndexAt(mx, my, screenW, screenH);
-            if (diffIdx >= 0) UI.hoveredButtonId = "difficulty-" + diffIdx;
-            else UI.hoveredButtonId = null;
-        }
+        if (dialogs.isOpen()) return;
+        widgets.setHovered(widgets.hitTest(mx, my));
     }
 
     private void handleMousePressed(double mx, double my) {
-        if (showMainMenu) {
-            String id = UI.mainMenuButtonIdAt(mx, my);
-            if (id != null) UI.pressedButtonId = id;
-            else {
-                int diffIdx = UI.difficultyButtonIndexAt(mx, my, screenW, screenH);
-                if (diffIdx >= 0) UI.pressedButtonId = "difficulty-" + diffIdx;
-                else UI.pressedButtonId = null;
-            }
-        } else {
-            int diffIdx = UI.difficultyButtonIndexAt(mx, my, screenW, screenH);
-            if (diffIdx >= 0) UI.pressedButtonId = "difficulty-" + diffIdx;
-            else UI.pressedButtonId = null;
-        }
+        if (dialogs.isOpen()) return;
+        widgets.setPressed(widgets.hitTest(mx, my));
     }
 
     private void handleMouseReleased(double mx, double my) {
-        String pressed = UI.pressedButtonId;
-        UI.pressedButtonId = null;
+        if (dialogs.isOpen()) return;
+        int pressed = widgets.getPressed();
+        widgets.setPressed(WidgetLayer.NONE);
 
-        if (pressed == null) {
+        if (pressed == WidgetLayer.NONE) {
             if (interstitialActive) return;
             if (paused) { togglePause(); return; }
             if (!gameOver) {
-                player.flap();
-                sound.playSfx("flap");
+                flap();
             } else {
                 resetGame();
             }
             return;
         }
 
-        if (showMainMenu) {
-            for (UI.MenuButton mb : UI.mainMenuButtons) {
-                if (pressed.equals(mb.id)) {
-                    switch (mb.id) {
-                        case "start-game":
-                            resetGame();
-                            showMainMenu = false;
-                            paused = false;
-                            break;
-                        case "difficulty":
-                            UI.showDifficultyModal(primaryStageRef, this::setDifficulty, assets);
-                            break;
-                        case "change-player":
-                            changeUser();
-                            break;
-                        case "quit":
-                            Platform.exit();
-                            break;
-                    }
-                    return;
-                }
-            }
-            int diffIdx = UI.difficultyButtonIndexAt(mx, my, screenW, screenH);
-            if (diffIdx >= 0) {
-                UI.showDifficultyModal(primaryStageRef, this::setDifficulty, assets);
-                return;
-            }
-            return;
-        }
-
-        int diffIdx = UI.difficultyButtonIndexAt(mx, my, screenW, screenH);
-        if (diffIdx >= 0) {
-            UI.showDifficultyModal(primaryStageRef, this::setDifficulty, assets);
-            return;
-        }
-
-        if (paused) { togglePause(); return; }
-        if (!gameOver) {
-            player.flap();
-            sound.playSfx("flap");
-        } else {
-            resetGame();
+        switch (pressed) {
+            case WidgetLayer.START_GAME:
+                startFromMenu();
+                break;
+            case WidgetLayer.DIFFICULTY:
+            case WidgetLayer.EASY:
+            case WidgetLayer.NORMAL:
+            case WidgetLayer.HARD:
+                dialogs.showDifficulty(this::setDifficulty);
+                break;
+            case WidgetLayer.CHANGE_PLAYER:
+                changeUser();
+                break;
+            case WidgetLayer.QUIT:
+                primaryStageRef.close();
+                break;
         }
     }
 
-    private void initPool() {
-        pipePool.clear();
-        for (int i = 0; i < GameConfig.POOL_SIZE; i++) pipePool.add(new PipePair(0, 0, assets));
-    }
-
     private void initGame() {
         player = new Bird(GameConfig.BIRD_SIZE, assets);
+        flapAt = -1;
         birdX = 200;
         pipes.clear();
         score = 0;
@@ -306,36 +564,62 @@ public class FlappyBirdFX extends Application {
         paused = false;
         showHighscorePage = false;
         totalPlayTime = 0;
+        playTicks = 0;
         shakeFrames = 0;
         synchronized (highscores) {
             highscores.putIfAbsent(currentUser, highscores.getOrDefault(currentUser, 0));
         }
         lastInterstitialScore = -999;
 
-        double startX = 700;
-        for (int i = 0; i < 4; i++) {
-            PipePair p = obtainPipe();
-            p.reset(startX + i * GameConfig.PIPE_SPACING, chooseGapY(screenH), GameConfig.INITIAL_PIPE_GAP);
-            pipes.add(p);
-        }
+        spawnInitialPipes();
 
         sound.playMusic();
     }
 
-    private PipePair obtainPipe() {
-        PipePair p = pipePool.pollFirst();
-        if (p == null) p = new PipePair(0, 0, assets);
-        return p;
+    private void spawnInitialPipes() {
+        levels.nextLevel();
+        course.start(levels, GameConfig.PIPE_SPACING, GameConfig.BASE_PIPE_SPEED, screenH);
+        startRace();
     }
 
-    private void releasePipe(PipePair p) {
-        pipePool.offerLast(p);
+    // ghosts only line up with the live game when the level and everything that shapes it are the same
+    private void startRace() {
+        if (!RACE_GHOSTS) return;
+        long seed = levels.getSeed();
+        double difficulty = difficultyMultiplier;
+        double viewW = Math.max(screenW, 800);
+        double viewH = screenH <= 0 ? 900 : screenH;
+        recorder.begin(seed, difficulty, viewW, viewH);
+        // never waits for the disk: ghosts that aren't loaded yet sit this race out
+        GhostStore.Loaded loaded = loadedGhosts.get();
+        List<GhostRun> runs = loaded != null && loaded.seed == seed
+                ? GhostStore.select(loaded, currentUser, difficulty, (int) viewW, (int) viewH, GameConfig.MAX_GHOSTS)
+                : List.of();
+        boolean own = !runs.isEmpty() && runs.get(0).user.equals(currentUser);
+        ghosts.start(runs, own, birdX, player.getY());
+
+        ghostsWanted = levels.getUpcoming();
+        events.publish(GameEventBus.GHOSTS_WANTED, score);
     }
 
-    private double chooseGapY(double screenHeight) {
-        double min = 150 + GameConfig.INITIAL_PIPE_GAP / 2.0;
-        double max = (screenHeight <= 0 ? 900 : screenHeight) - 150 - GameConfig.INITIAL_PIPE_GAP / 2.0;
-        return min + rand.nextDouble() * Math.max(0, max - min);
+    // on the persistence thread; reads the file only the first time a seed is asked for
+    private void loadGhosts() {
+        long t = HitchAnalyzer.begin();
+        loadedGhosts.set(ghostStore.load(ghostsWanted));
+        HitchAnalyzer.end(HitchAnalyzer.IO, "ghost load", t);
+    }
+
+    // the bird's part of a tick, split where the player flapped inside it; GhostRace replays the same split
+    private void stepBird(double dt) {
+        if (flapAt < 0) {
+            player.update(dt);
+            return;
+        }
+        double before = flapAt * dt;
+        flapAt = -1;
+        player.update(before);
+        player.flap();
+        player.update(dt - before);
     }
 
     private void update(double dt) {
@@ -349,82 +633,62 @@ public class FlappyBirdFX extends Application {
             } else {
                 shakeX = shakeY = 0;
             }
-            particles.update(dt);
             player.update(dt);
             return;
         }
 
+        // a flap still pending waits for the next played tick, which is the one it was recorded against
         if (paused) {
-            particles.update(dt);
             player.update(dt);
             return;
         }
 
+        int tick = playTicks++;
         totalPlayTime += dt;
 
-        player.update(dt);
+        stepBird(dt);
         player.setX(birdX);
 
-        double difficultyFactor = GameConfig.getDifficultyFactor(totalPlayTime, score, assets.getDifficultyMultiplier());
-        double pipeSpeed = GameConfig.BASE_PIPE_SPEED * difficultyFactor;
-        int currentGap = Math.max(120, GameConfig.INITIAL_PIPE_GAP - (int) (score * 1.5 + Math.log1p(totalPlayTime) * 6));
-
-        ArrayList<PipePair> recycled = null;
-        for (PipePair p : pipes) {
-            p.x -= pipeSpeed * dt;
-            if (p.collidesWith(player)) triggerDeath();
-            if (p.x + GameConfig.PIPE_WIDTH < -20) {
-                if (recycled == null) recycled = new ArrayList<>();
-                recycled.add(p);
-            }
-        }
-
-        if (recycled != null) {
-            for (PipePair p : recycled) {
-                pipes.remove(p);
-                double newX = Math.max(screenW, 800) + GameConfig.PIPE_SPACING;
-                p.reset(newX, chooseGapY(screenH), currentGap);
-                pipes.addLast(p);
-                score++;
-                sound.playSfx("score");
-                maybeTriggerInterstitial();
-            }
-        }
+        double difficultyFactor = GameConfig.getDifficultyFactor(totalPlayTime, score, difficultyMultiplier);
+        double speed = GameConfig.BASE_PIPE_SPEED * difficultyFactor;
+        if (course.advance(speed, dt, player.getX(), player.getY(), player.getSize())) triggerDeath();
+        ghosts.step(tick, dt, pipes, screenH <= 0 ? 900 : screenH);
 
-        if (player.getY() < 0 || player.getY() + GameConfig.BIRD_SIZE > (screenH <= 0 ? 900 : screenH)) {
-            triggerDeath();
+        while (course.recycle(screenW, screenH)) {
+            score++;
+            events.publish(GameEventBus.SCORE, score, 0, player.getCenterX(), player.getY(), 0);
+            events.publish(GameEventBus.INTERSTITIAL_CHECK, score);
         }
 
-        particles.update(dt);
+        if (Course.outOfBounds(player.getY(), GameConfig.BIRD_SIZE, screenH)) triggerDeath();
     }
 
-    private void maybeTriggerInterstitial() {
+    private void maybeTriggerInterstitial(int checkScore) {
         if (interstitialActive) return;
 
-        if (score > 0 && (score % INTERSTITIAL_CHECK_INTERVAL == 0) && score != lastInterstitialScore) {
-            lastInterstitialScore = score;
+        if (checkScore > 0 && (checkScore % INTERSTITIAL_CHECK_INTERVAL == 0) && checkScore != lastInterstitialScore) {
+            lastInterstitialScore = checkScore;
             double roll = rand.nextDouble();
-            if (roll <= INTERSTITIAL_PROBABILITY) {
-                Media video = assets.interstitialVideo;
-                Media audio = sound.loadMedia("/media/gaster.wav");
-
-                sound.startInterstitial(video, audio, this::endInterstitialCallback);
-
-                if (video != null) {
-                    showInterstitialVideoLeftHalfAndResizeWindow(video);
-                }
-
+            if (forcedInterstitials != null ? forcedInterstitials : roll <= INTERSTITIAL_PROBABILITY) {
                 interstitialActive = true;
+                sound.startInterstitial(interstitial, this::showInterstitialVideoLeftHalfAndResizeWindow, this::endInterstitialCallback);
             }
         }
     }
 
-    private void render() {
-        gc.clearRect(0, 0, screenW, screenH);
+    private void maybePrerollInterstitial(int checkScore) {
+        if (interstitialActive) return;
+        int untilCheck = INTERSTITIAL_CHECK_INTERVAL - (checkScore % INTERSTITIAL_CHECK_INTERVAL);
+        if (untilCheck <= INTERSTITIAL_PREROLL_LEAD) interstitial.preroll();
+    }
+
+    private void render(RenderCommandBuffer r, WorldSnapshot view) {
+        updateWidgets();
+        r.clearRect(0, 0, screenW, screenH);
 
         if (interstitialActive) {
-            gc.setFill(Color.BLACK);
-            gc.fillRect(0, 0, screenW, screenH);
+            r.setFill(Color.BLACK);
+            r.fillRect(0, 0, screenW, screenH);
 
             if (assets != null && assets.interstitialPlaceholder != null) {
                 double iw = assets.interstitialPlaceholder.getWidth();
@@ -433,163 +697,109 @@ public class FlappyBirdFX extends Application {
                     double scale = Math.min(screenW / iw, screenH / ih);
                     double w = iw * scale;
                     double h = ih * scale;
-                    gc.drawImage(assets.interstitialPlaceholder, (screenW - w) / 2.0, (screenH - h) / 2.0, w, h);
+                    r.drawImage(assets.interstitialPlaceholder, (screenW - w) / 2.0, (screenH - h) / 2.0, w, h);
                 }
             }
             return;
         }
 
-        gc.save();
-        gc.translate(shakeX, shakeY);
+        r.save();
+        r.translate(view.shakeX, view.shakeY);
 
         if (showMainMenu) {
-            UI.renderParallaxBackground(gc, screenW, screenH, assets, totalPlayTime);
-            UI.renderMainMenu(gc, screenW, screenH, assets);
-            gc.restore();
+            UI.renderParallaxBackground(r, screenW, screenH, assets, view.totalPlayTime);
+            UI.renderMainMenu(r, screenW, screenH, assets, layout);
+            r.restore();
             return;
         }
 
-        UI.renderParallaxBackground(gc, screenW, screenH, assets, totalPlayTime);
-        for (PipePair p : pipes) p.render(gc, screenH);
-        particles.render(gc);
-        player.render(gc);
-        UI.renderHUD(gc, screenW, screenH, score, currentUser, assets);
-
-        if (paused) UI.renderPauseOverlay(gc, screenW, screenH, assets);
-        if (gameOver) {
-            if (showHighscorePage)
-                UI.renderHighscorePage(gc, screenW, screenH, highscores, currentUser, assets);
-            else {
-                UI.renderGameOver(gc, screenW, screenH, score, highscores.getOrDefault(currentUser, 0), assets);
-                UI.renderDifficultyButtons(gc, screenW, screenH, assets);
+        UI.renderParallaxBackground(r, screenW, screenH, assets, view.totalPlayTime);
+        r.beginSorted();
+        view.obstacles.renderBodies(r, assets, screenH);
+        r.endSorted();
+        view.obstacles.renderCaps(r, assets);
+        view.ghosts.render(r, assets.bird, screenH);
+        particles.render(r, screenW, screenH);
+        view.bird.render(r);
+        UI.renderHUD(r, screenW, screenH, view.score, currentUser, assets);
+
+        if (paused) UI.renderPauseOverlay(r, screenW, screenH, assets);
+        if (view.gameOver) {
+            synchronized (highscores) {
+                if (showHighscorePage)
+                    UI.renderHighscorePage(r, screenW, screenH, highscores, currentUser, assets);
+                else
+                    UI.renderGameOver(r, screenW, screenH, view.score, highscores.getOrDefault(currentUser, 0), assets);
             }
         }
 
-        gc.restore();
+        r.restore();
+    }
+
+    private void updateWidgets() {
+        int groups = 0;
+        if (!interstitialActive) {
+            if (showMainMenu) groups = WidgetLayer.GROUP_MENU | WidgetLayer.GROUP_DIFFICULTY;
+            else if (gameOver && !showHighscorePage) groups = WidgetLayer.GROUP_DIFFICULTY;
+        }
+        widgets.setVisibleGroups(groups);
+        widgets.paint();
     }
 
     private void triggerDeath() {
-        if (!gameOver) {
+        if (!gameOver && !invulnerable) {
             gameOver = true;
             shakeFrames = 24;
-            sound.playDeath();
+            int flags = 0;
             synchronized (highscores) {
                 int prev = highscores.getOrDefault(currentUser, 0);
                 if (score > prev) {
                     highscores.put(currentUser, score);
-                    saveHighscores();
+                    flags |= GameEventBus.FLAG_NEW_HIGHSCORE;
                 }
             }
-            particles.spawnDeathEffect(player.getCenterX(), player.getCenterY(), assets.getDifficultyMultiplier());
+            if (RACE_GHOSTS && score > 0) finishedRun.set(recorder.finish(currentUser, score, playTicks));
+            events.publish(GameEventBus.DEATH, score, flags, player.getCenterX(), player.getCenterY(), difficultyMultiplier);
             player.startDeathFade();
         }
     }
 
     private void resetGame() {
-        for (PipePair p : pipes) releasePipe(p);
-        pipes.clear();
-        player.reset();
         particles.clear();
-        score = 0;
-        gameOver = false;
         paused = false;
         showHighscorePage = false;
-        totalPlayTime = 0;
         lastInterstitialScore = -999;
 
-        double startX = 700;
-        for (int i = 0; i < 4; i++) {
-            PipePair p = obtainPipe();
-            p.reset(startX + i * GameConfig.PIPE_SPACING, chooseGapY(screenH), GameConfig.INITIAL_PIPE_GAP);
-            pipes.add(p);
-        }
+        if (simulation != null) simulation.submit(CMD_RESET, System.nanoTime());
+        else resetWorld();
 
         sound.playMusic();
     }
 
+    private void resetWorld() {
+        pipes.clear();
+        player.reset();
+        flapAt = -1;
+        score = 0;
+        gameOver = false;
+        totalPlayTime = 0;
+        playTicks = 0;
+
+        spawnInitialPipes();
+    }
+
     private void changeUser() {
-        Platform.runLater(() -> {
-            Stage dialog = new Stage(StageStyle.TRANSPARENT);
-            dialog.initOwner(primaryStageRef);
-            dialog.initModality(Modality.APPLICATION_MODAL);
-
-            VBox container = new VBox(12);
-            container.setPadding(new Insets(18));
-            container.setAlignment(Pos.CENTER_LEFT);
-
-            BackgroundFill fill = new BackgroundFill(Color.web("#202030", 0.95), new CornerRadii(12), Insets.EMPTY);
-            container.setBackground(new Background(fill));
-            container.setEffect(new DropShadow(12, Color.rgb(0,0,0,0.6)));
-
-            Label title = new Label("Change Player");
-            title.setTextFill(Color.web("#FFDDAA"));
-            title.setStyle("-fx-font-weight: bold;");
-            title.setWrapText(true);
-            title.setMaxWidth(380);
-            try { title.setFont(assets.uiMedium); } catch (Exception ignored){ title.setStyle(title.getStyle() + "-fx-font-size:18px;"); }
-
-            Label hint = new Label("Enter a name to save highscore under:");
-            hint.setTextFill(Color.web("#E0E0FF"));
-            try { hint.setFont(assets.uiSmall); } catch (Exception ignored){ }
-
-            TextField tf = new TextField(currentUser);
-            tf.setPromptText("Your name");
-            tf.setPrefWidth(380);
-            tf.setStyle("-fx-background-radius: 8; -fx-padding: 8 10 8 10; -fx-focus-color: #82CFFD;");
-
-            HBox buttons = new HBox(10);
-            buttons.setAlignment(Pos.CENTER_RIGHT);
-
-            Button cancel = new Button("Cancel");
-            cancel.setStyle("-fx-background-radius:8; -fx-background-color: #444; -fx-text-fill: white;");
-            cancel.setOnAction(e -> dialog.close());
-
-            Button save = new Button("Save");
-            save.setStyle("-fx-background-radius:8; -fx-background-color: linear-gradient(#66CCFF, #3388EE); -fx-text-fill: white; -fx-font-weight: bold;");
-            save.setOnAction(e -> {
-                String name = tf.getText();
-                if (name != null && !name.trim().isEmpty()) {
-                    currentUser = name.trim();
-                    synchronized (highscores) {
-                        highscores.putIfAbsent(currentUser, highscores.getOrDefault(currentUser, 0));
-                        saveHighscores();
-                    }
+        dialogs.showChangePlayer(currentUser, name -> {
+            if (name != null && !name.trim().isEmpty()) {
+                currentUser = name.trim();
+                synchronized (highscores) {
+                    highscores.putIfAbsent(currentUser, highscores.getOrDefault(currentUser, 0));
                 }
-                dialog.close();
-                resetGame();
-            });
-
-            buttons.getChildren().addAll(cancel, save);
-
-            if (assets != null && assets.logo != null) {
-                Image logo = assets.logo;
-                javafx.scene.image.ImageView iv = new javafx.scene.image.ImageView(logo);
-                double maxW = 60;
-                double scale = Math.min(maxW / logo.getWidth(), 1.0);
-                iv.setFitWidth(logo.getWidth() * scale);
-                iv.setPreserveRatio(true);
-                iv.setSmooth(true);
-                iv.setCache(true);
-                iv.setCacheHint(CacheHint.SPEED);
-
-                HBox top = new HBox(12);
-                top.setAlignment(Pos.CENTER_LEFT);
-                top.getChildren().addAll(iv, title);
-                container.getChildren().addAll(top, hint, tf, buttons);
-            } else {
-                container.getChildren().addAll(title, hint, tf, buttons);
+                // the bus has one producer, the thread that runs the world, so the save request goes through it
+                if (simulation != null) simulation.submit(CMD_SAVE_HIGHSCORES, System.nanoTime());
+                else events.publish(GameEventBus.HIGHSCORES_CHANGED, score);
             }
-
-            Scene s = new Scene(container);
-            s.setFill(Color.TRANSPARENT);
-            dialog.setScene(s);
-
-            dialog.setWidth(440);
-            dialog.setHeight(220);
-            dialog.setResizable(false);
-            dialog.centerOnScreen();
-
-            dialog.showAndWait();
+            resetGame();
         });
     }
 
@@ -612,137 +822,88 @@ public class FlappyBirdFX extends Application {
         }
     }
 
+    private void reportPerformance() {
+        String report = (hitches != null ? hitches.report() : "") + latency.report() + renderer.report()
+                + String.format(Locale.ROOT, "menu: %d widget repaints, %d layout passes%n",
+                widgets.getRepaints(), layout.getPasses());
+        System.out.print(report);
+        try {
+            Path file = highscoresFilePath.resolveSibling("performance.txt");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, report);
+            System.out.println("Performance report saved to " + file);
+        } catch (Exception e) {
+            System.err.println("Failed to save performance report: " + e.getMessage());
+        }
+    }
+
     private void setDifficulty(double multiplier) {
-        assets.setDifficultyMultiplier(multiplier);
+        difficultyMultiplier = multiplier;
     }
 
-    private void showInterstitialVideoLeftHalfAndResizeWindow(Media video) {
-        hideInterstitialVideo();
+    private void showInterstitialVideoLeftHalfAndResizeWindow() {
+        MediaPlayer player = interstitial.getVideoPlayer();
+        if (player == null) return;
 
         try {
-            interstitialVideoPlayer = new MediaPlayer(video);
-            interstitialVideoPlayer.setMute(true);
-
-            mediaView = new MediaView(interstitialVideoPlayer);
-            mediaView.setPreserveRatio(true);
-            mediaView.setSmooth(true);
-            mediaView.setMouseTransparent(true);
-
-            interstitialContainer = new Pane();
-
-            interstitialVideoPlayer.setOnReady(() -> {
-                double vw = video.getWidth();
-                double vh = video.getHeight();
-
-                if (vw <= 0 || vh <= 0) {
-                    vw = Math.max(1280, screenW * 2);
-                    vh = Math.max(720, screenH);
-                }
-
-                double nativeLeftW = vw / 2.0;
-                double nativeLeftH = vh;
-
-                Rectangle2D screenBounds = getScreenBoundsForStage(primaryStageRef);
-                double maxW = screenBounds.getWidth() * 0.95;
-                double maxH = screenBounds.getHeight() * 0.95;
-
-                double scale = Math.min(maxW / nativeLeftW, maxH / nativeLeftH);
-                if (scale <= 0) scale = 1.0;
-
-                double finalWidth = nativeLeftW * scale;
-                double finalHeight = nativeLeftH * scale;
-
-                double mediaViewWidth = vw * scale;
-                double mediaViewHeight = vh * scale;
-
-                Platform.runLater(() -> {
-                    try {
-                        primaryStageRef.setWidth(finalWidth);
-                        primaryStageRef.setHeight(finalHeight);
+            if (mediaView == null) {
+                mediaView = new MediaView();
+                mediaView.setPreserveRatio(true);
+                mediaView.setSmooth(true);
+                mediaView.setMouseTransparent(true);
 
-                        interstitialContainer.setPrefSize(finalWidth, finalHeight);
-                        interstitialContainer.setMinSize(finalWidth, finalHeight);
-                        interstitialContainer.setMaxSize(finalWidth, finalHeight);
-                        Rectangle clip = new Rectangle(finalWidth, finalHeight);
-                        interstitialContainer.setClip(clip);
-
-                        mediaView.setFitWidth(mediaViewWidth);
-                        mediaView.setFitHeight(mediaViewHeight);
-                        mediaView.setLayoutX(0);
-                        mediaView.setLayoutY(0);
-
-                        interstitialContainer.getChildren().clear();
-                        interstitialContainer.getChildren().add(mediaView);
-
-                        rootPane.getChildren().add(interstitialContainer);
-
-                        gc.setFill(Color.BLACK);
-                        gc.fillRect(0, 0, finalWidth, finalHeight);
-                    } catch (Exception e) {
-                        System.err.println("Failed to layout interstitial container: " + e.getMessage());
-                    }
-                });
+                interstitialContainer = new Pane(mediaView);
+            }
+            mediaView.setMediaPlayer(player);
 
-                interstitialVideoPlayer.play();
-            });
+            Media video = player.getMedia();
+            double vw = video.getWidth();
+            double vh = video.getHeight();
 
-            interstitialVideoPlayer.setOnEndOfMedia(() -> {
-                Platform.runLater(this::hideInterstitialVideo);
-            });
+            if (vw <= 0 || vh <= 0) {
+                vw = Math.max(1280, screenW * 2);
+                vh = Math.max(720, screenH);
+            }
 
-            interstitialVideoPlayer.setOnError(() -> {
-                System.err.println("Interstitial video player error: " + interstitialVideoPlayer.getError());
-                Platform.runLater(() -> {
-                    hideInterstitialVideo();
-                    endInterstitialCallback();
-                });
-            });
+            layout.setInterstitialVideo(vw, vh);
+            layout.invalidateScreen();
 
+            if (!rootPane.getChildren().contains(interstitialContainer)) {
+                rootPane.getChildren().add(interstitialContainer);
+            }
+            applyLayout();
         } catch (Exception e) {
-            System.err.println("Failed to create interstitial MediaPlayer: " + e.getMessage());
-            hideInterstitialVideo();
+            System.err.println("Failed to layout interstitial container: " + e.getMessage());
         }
     }
 
-    private void layoutInterstitialVideoOnResize() {
-        if (interstitialContainer == null || mediaView == null || interstitialVideoPlayer == null) return;
-        Media media = interstitialVideoPlayer.getMedia();
-        if (media == null) return;
-
-        double vw = media.getWidth();
-        double vh = media.getHeight();
-        if (vw <= 0 || vh <= 0) return;
-
-        double nativeLeftW = vw / 2.0;
-        double nativeLeftH = vh;
-
-        Rectangle2D screenBounds = getScreenBoundsForStage(primaryStageRef);
-        double maxW = screenBounds.getWidth() * 0.95;
-        double maxH = screenBounds.getHeight() * 0.95;
-
-        double scale = Math.min(maxW / nativeLeftW, maxH / nativeLeftH);
-        if (scale <= 0) scale = 1.0;
-
-        double finalWidth = nativeLeftW * scale;
-        double finalHeight = nativeLeftH * scale;
+    private void applyLayout() {
+        if (!layout.isDirty()) return;
+        if (layout.needsScreenBounds()) layout.setScreenBounds(getScreenBoundsForStage(primaryStageRef));
+        if (!layout.validate(screenW, screenH, assets)) return;
+        widgets.layout(layout);
+        if (layout.hasInterstitial() && interstitialContainer != null) applyInterstitialLayout();
+    }
 
-        double mediaViewWidth = vw * scale;
-        double mediaViewHeight = vh * scale;
+    private void applyInterstitialLayout() {
+        double finalWidth = layout.interstitialW;
+        double finalHeight = layout.interstitialH;
 
-        Platform.runLater(() -> {
+        if (interstitialContainer.getPrefWidth() != finalWidth || interstitialContainer.getPrefHeight() != finalHeight) {
             interstitialContainer.setPrefSize(finalWidth, finalHeight);
             interstitialContainer.setMinSize(finalWidth, finalHeight);
             interstitialContainer.setMaxSize(finalWidth, finalHeight);
             interstitialContainer.setClip(new Rectangle(finalWidth, finalHeight));
+        }
 
-            mediaView.setFitWidth(mediaViewWidth);
-            mediaView.setFitHeight(mediaViewHeight);
-            mediaView.setLayoutX(0);
-            mediaView.setLayoutY(0);
+        mediaView.setFitWidth(layout.interstitialMediaW);
+        mediaView.setFitHeight(layout.interstitialMediaH);
+        mediaView.setLayoutX(0);
+        mediaView.setLayoutY(0);
 
-            primaryStageRef.setWidth(finalWidth);
-            primaryStageRef.setHeight(finalHeight);
-        });
+        // only touch the stage when the size actually changes, otherwise every resize event would feed back into another
+        if (primaryStageRef.getWidth() != finalWidth) primaryStageRef.setWidth(finalWidth);
+        if (primaryStageRef.getHeight() != finalHeight) primaryStageRef.setHeight(finalHeight);
     }
 
     private Rectangle2D getScreenBoundsForStage(Stage stage) {
@@ -760,20 +921,9 @@ public class FlappyBirdFX extends Application {
     }
 
     private void hideInterstitialVideo() {
-        if (interstitialVideoPlayer != null) {
-            try {
-                interstitialVideoPlayer.stop();
-                interstitialVideoPlayer.dispose();
-            } catch (Exception ignored) {}
-            interstitialVideoPlayer = null;
-        }
-        if (interstitialContainer != null) {
-            Platform.runLater(() -> {
-                rootPane.getChildren().remove(interstitialContainer);
-            });
-            interstitialContainer = null;
-        }
-        mediaView = null;
+        layout.setInterstitialVideo(0, 0);
+        if (mediaView != null) mediaView.setMediaPlayer(null);
+        if (interstitialContainer != null) rootPane.getChildren().remove(interstitialContainer);
     }
 
     private void endInterstitialCallback() {
@@ -783,7 +933,11 @@ public class FlappyBirdFX extends Application {
         });
     }
 
-    private void loadHighscores() {
+    private static void loadHighscores() {
+        synchronized (highscores) {
+            if (highscoresLoaded) return;
+            highscoresLoaded = true;
+        }
         try {
             if (Files.exists(highscoresFilePath)) {
                 Properties p = new Properties();
@@ -813,7 +967,8 @@ public class FlappyBirdFX extends Application {
         }
     }
 
-    private void saveHighscores() {
+    private static void saveHighscores() {
+        long t = HitchAnalyzer.begin();
         try {
             Path dir = highscoresFilePath.getParent();
             if (dir != null && !Files.exists(dir)) {
@@ -833,6 +988,8 @@ public class FlappyBirdFX extends Application {
             Files.move(tmp, highscoresFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (Exception e) {
             System.err.println("Failed to save highscores: " + e.getMessage());
+        } finally {
+            HitchAnalyzer.end(HitchAnalyzer.IO, "saveHighscores", t);
         }
     }
 }
@@ -0,0 +1,133 @@
+package com.fbo;
+
+import com.fbo.graphics.AssetManager;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+
+public final class LayoutCache {
+    public static final String[] MENU_LABELS = {"Start Game", "Difficulty", "Change Player", "Quit"};
+    public static final String[] DIFFICULTY_LABELS = {"Easy", "Normal", "Hard"};
+
+    public static final double DIFFICULTY_BUTTON_W = 120;
+    public static final double DIFFICULTY_BUTTON_H = 35;
+    private static final double DIFFICULTY_BUTTON_TOP = 50;
+    private static final double DIFFICULTY_BUTTON_SPACING = 45;
+
+    public static final double MENU_BUTTON_H = 50;
+    private static final double MENU_BUTTON_SPACING = 12;
+
+    private boolean dirty = true;
+    private double width = -1, height = -1;
+    private int passes = 0;
+
+    // main menu
+    public boolean hasLogo;
+    public double logoX, logoY, logoW, logoH;
+    public double titleY;
+    public double menuButtonX, menuButtonW;
+    public final double[] menuButtonY = new double[MENU_LABELS.length];
+    public double menuHintY;
+
+    // difficulty buttons
+    public double difficultyButtonX;
+    public final double[] difficultyButtonY = new double[DIFFICULTY_LABELS.length];
+
+    // interstitial
+    private Rectangle2D screenBounds;
+    private double videoW, videoH;
+    public double interstitialW, interstitialH;
+    public double interstitialMediaW, interstitialMediaH;
+
+    public void invalidate() { dirty = true; }
+
+    public void invalidateScreen() {
+        screenBounds = null;
+        dirty = true;
+    }
+
+    public boolean isDirty() { return dirty; }
+
+    public boolean needsScreenBounds() { return screenBounds == null && hasInterstitial(); }
+
+    public void setScreenBounds(Rectangle2D bounds) {
+        screenBounds = bounds;
+        dirty = true;
+    }
+
+    public void setInterstitialVideo(double vw, double vh) {
+        videoW = vw;
+        videoH = vh;
+        dirty = true;
+    }
+
+    public boolean hasInterstitial() { return videoW > 0 && videoH > 0; }
+
+    public int getPasses() { return passes; }
+
+    public boolean validate(double w, double h, AssetManager assets) {
+        if (!dirty && w == width && h == height) return false;
+        width = w;
+        height = h;
+        dirty = false;
+        passes++;
+
+        layoutMainMenu(w, h, assets);
+        layoutDifficultyButtons(w);
+        layoutInterstitial();
+        return true;
+    }
+
+    private void layoutMainMenu(double w, double h, AssetManager assets) {
+        double logoTopMargin = Math.max(24, h * 0.06);
+        double logoMaxW = Math.min(260, w * 0.45);
+        double y = logoTopMargin;
+
+        Image logo = assets != null ? assets.logo : null;
+        hasLogo = logo != null;
+        if (hasLogo) {
+            double scale = Math.min(logoMaxW / logo.getWidth(), 1.0);
+            logoW = logo.getWidth() * scale;
+            logoH = logo.getHeight() * scale;
+            logoX = (w - logoW) / 2.0;
+            logoY = y;
+            y += logoH + 18;
+        } else {
+            titleY = y + 40;
+            y += 80;
+        }
+
+        menuButtonW = Math.min(280, w * 0.45);
+        menuButtonX = (w - menuButtonW) / 2.0;
+        double byStart = y + 6;
+
+        for (int i = 0; i < MENU_LABELS.length; i++) {
+            menuButtonY[i] = byStart + i * (MENU_BUTTON_H + MENU_BUTTON_SPACING);
+        }
+        menuHintY = byStart + MENU_LABELS.length * (MENU_BUTTON_H + MENU_BUTTON_SPACING) + 28;
+    }
+
+    private void layoutDifficultyButtons(double w) {
+        difficultyButtonX = w - 140;
+        for (int i = 0; i < DIFFICULTY_LABELS.length; i++) {
+            difficultyButtonY[i] = DIFFICULTY_BUTTON_TOP + i * DIFFICULTY_BUTTON_SPACING;
+        }
+    }
+
+    private void layoutInterstitial() {
+        if (!hasInterstitial() || screenBounds == null) return;
+
+        double nativeLeftW = videoW / 2.0;
+        double nativeLeftH = videoH;
+
+        double maxW = screenBounds.getWidth() * 0.95;
+        double maxH = screenBounds.getHeight() * 0.95;
+
+        double scale = Math.min(maxW / nativeLeftW, maxH / nativeLeftH);
+        if (scale <= 0) scale = 1.0;
+
+        interstitialW = nativeLeftW * scale;
+        interstitialH = nativeLeftH * scale;
+        interstitialMediaW = videoW * scale;
+        interstitialMediaH = videoH * scale;
+    }
+}
@@ -0,0 +1,176 @@
+package com.fbo;
+
+import com.fbo.config.GameConfig;
+import com.fbo.graphics.AssetManager;
+import com.fbo.graphics.RenderCommandBuffer;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+public final class ObstacleRing {
+    private final int capacity;
+    private final int mask;
+
+    // obstacles are spawned left to right and all move at the same speed, so the
+    // first to scroll off is always at head and new ones always go to the tail
+    private final double[] x;
+    private final double[] gapCenterY;
+    private final double[] gapSize;
+    private final double[] width;
+    private final double[] topCapAngle;
+    private final double[] bottomCapAngle;
+    private int head = 0;
+    private int size = 0;
+
+    public ObstacleRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        x = new double[capacity];
+        gapCenterY = new double[capacity];
+        gapSize = new double[capacity];
+        width = new double[capacity];
+        topCapAngle = new double[capacity];
+        bottomCapAngle = new double[capacity];
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int size() { return size; }
+
+    public int capacity() { return capacity; }
+
+    public boolean spawn(double x, double gapCenterY, double gapSize) {
+        return spawn(x, gapCenterY, gapSize, GameConfig.PIPE_WIDTH);
+    }
+
+    public boolean spawn(double x, double gapCenterY, double gapSize, double width) {
+        if (size == capacity) return false;
+        int i = (head + size) & mask;
+        this.x[i] = x;
+        this.gapCenterY[i] = gapCenterY;
+        this.gapSize[i] = gapSize;
+        this.width[i] = width;
+
+        double seed = x * 0.13 + gapCenterY * 0.37;
+        double frac = Math.abs(Math.sin(seed));
+        double tilt = (frac * 28.0) - 14.0;
+        topCapAngle[i] = tilt;
+        bottomCapAngle[i] = -tilt * 0.6;
+        size++;
+        return true;
+    }
+
+    // removes head if it has scrolled past minX; callers loop until it returns false
+    public boolean recycleHead(double minX) {
+        if (size == 0 || x[head] + width[head] >= minX) return false;
+        head = (head + 1) & mask;
+        size--;
+        return true;
+    }
+
+    public void advance(double dx) {
+        for (int n = 0, i = head; n < size; n++, i = (i + 1) & mask) x[i] -= dx;
+    }
+
+    public boolean collides(double birdX, double birdY, double birdSize) {
+        for (int n = 0, i = head; n < size; n++, i = (i + 1) & mask) {
+            double left = x[i];
+            if (birdX + birdSize < left || birdX > left + width[i]) continue;
+            double half = gapSize[i] / 2.0;
+            if (birdY < gapCenterY[i] - half || birdY + birdSize > gapCenterY[i] + half) return true;
+        }
+        return false;
+    }
+
+    public double x(int n) { return x[(head + n) & mask]; }
+
+    public double gapCenterY(int n) { return gapCenterY[(head + n) & mask]; }
+
+    public double gapSize(int n) { return gapSize[(head + n) & mask]; }
+
+    public double width(int n) { return width[(head + n) & mask]; }
+
+    public void copyFrom(ObstacleRing other) {
+        if (other.capacity != capacity) throw new IllegalArgumentException("capacity mismatch: " + other.capacity + " != " + capacity);
+        head = other.head;
+        size = other.size;
+        int end = head + size;
+        if (end <= capacity) {
+            copyRange(other, head, size);
+        } else {
+            copyRange(other, head, capacity - head);
+            copyRange(other, 0, end - capacity);
+        }
+    }
+
+    private void copyRange(ObstacleRing other, int from, int length) {
+        System.arraycopy(other.x, from, x, from, length);
+        System.arraycopy(other.gapCenterY, from, gapCenterY, from, length);
+        System.arraycopy(other.gapSize, from, gapSize, from, length);
+        System.arraycopy(other.width, from, width, from, length);
+        System.arraycopy(other.topCapAngle, from, topCapAngle, from, length);
+        System.arraycopy(other.bottomCapAngle, from, bottomCapAngle, from, length);
+    }
+
+    public void renderBodies(RenderCommandBuffer r, AssetManager assets, double screenHeight) {
+        Image pipeImg = assets.pipeTexture;
+        for (int n = 0, i = head; n < size; n++, i = (i + 1) & mask) {
+            double px = x[i], w = width[i];
+            double topPipeBottom = gapCenterY[i] - gapSize[i] / 2.0;
+            double bottomPipeTop = gapCenterY[i] + gapSize[i] / 2.0;
+            double bottomPipeHeight = screenHeight - bottomPipeTop;
+
+            if (pipeImg != null) {
+                r.drawImage(pipeImg, px, 0, w, topPipeBottom);
+                r.drawImage(pipeImg, px, bottomPipeTop, w, bottomPipeHeight);
+            } else {
+                r.setFill(Color.GREEN);
+                r.fillRect(px, 0, w, topPipeBottom);
+                r.fillRect(px, bottomPipeTop, w, bottomPipeHeight);
+
+                r.setFill(Color.DARKGREEN);
+                r.fillRect(px - 5, topPipeBottom - 30, w + 10, 30);
+                r.fillRect(px - 5, bottomPipeTop, w + 10, 30);
+            }
+        }
+    }
+
+    public void renderCaps(RenderCommandBuffer r, AssetManager assets) {
+        if (assets.pipeTexture == null) return;
+        Image capTop = assets.pipeCapTop;
+        Image capBottom = assets.pipeCapBottom;
+
+        for (int n = 0, i = head; n < size; n++, i = (i + 1) & mask) {
+            double px = x[i], w = width[i];
+            double cx = px + w / 2.0;
+
+            if (capTop != null) {
+                double capScale = w / capTop.getWidth();
+                double capW = capTop.getWidth() * capScale;
+                double capH = capTop.getHeight() * capScale;
+
+                r.save();
+                r.translate(cx, gapCenterY[i] - gapSize[i] / 2.0);
+                r.rotate(topCapAngle[i]);
+                r.scale(1, -1);
+                r.drawImage(capTop, -capW / 2.0, -capH / 2.0 + (capH * 0.25), capW, capH);
+                r.restore();
+            }
+
+            if (capBottom != null) {
+                double capScale = w / capBottom.getWidth();
+                double capW = capBottom.getWidth() * capScale;
+                double capH = capBottom.getHeight() * capScale;
+
+                r.save();
+                r.translate(cx, gapCenterY[i] + gapSize[i] / 2.0);
+                r.rotate(bottomCapAngle[i]);
+                r.drawImage(capBottom, -capW / 2.0, -capH / 2.0 - (capH * 0.25), capW, capH);
+                r.restore();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.fbo;
+
+import com.fbo.graphics.AssetManager;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.CacheHint;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
+
+import java.util.function.Consumer;
+
+public final class OverlayDialogs {
+    private final StackPane host;
+    private final AssetManager assets;
+
+    private StackPane changePlayerOverlay;
+    private TextField nameField;
+    private Consumer<String> onNameSaved;
+
+    private StackPane difficultyOverlay;
+    private Consumer<Double> onDifficultySelected;
+
+    private StackPane active;
+
+    public OverlayDialogs(StackPane host, AssetManager assets) {
+        this.host = host;
+        this.assets = assets;
+    }
+
+    public boolean isOpen() { return active != null; }
+
+    public void showChangePlayer(String currentName, Consumer<String> onSave) {
+        if (changePlayerOverlay == null) changePlayerOverlay = buildChangePlayer();
+        onNameSaved = onSave;
+        nameField.setText(currentName);
+        open(changePlayerOverlay);
+        nameField.requestFocus();
+        nameField.selectAll();
+    }
+
+    public void showDifficulty(Consumer<Double> onSelect) {
+        if (difficultyOverlay == null) difficultyOverlay = buildDifficulty();
+        onDifficultySelected = onSelect;
+        open(difficultyOverlay);
+    }
+
+    public void close() {
+        if (active == null) return;
+        active.setVisible(false);
+        active = null;
+        onNameSaved = null;
+        onDifficultySelected = null;
+        host.requestFocus();
+    }
+
+    private void open(StackPane overlay) {
+        if (active != null && active != overlay) active.setVisible(false);
+        if (!host.getChildren().contains(overlay)) host.getChildren().add(overlay);
+        overlay.toFront();
+        overlay.setVisible(true);
+        active = overlay;
+    }
+
+    private StackPane wrap(Region card, double w, double h) {
+        card.setMaxSize(w, h);
+        card.setPrefSize(w, h);
+
+        StackPane overlay = new StackPane(card);
+        overlay.setPickOnBounds(true);
+        overlay.setVisible(false);
+        return overlay;
+    }
+
+    private StackPane buildChangePlayer() {
+        VBox container = new VBox(12);
+        container.setPadding(new Insets(18));
+        container.setAlignment(Pos.CENTER_LEFT);
+
+        BackgroundFill fill = new BackgroundFill(Color.web("#202030", 0.95), new CornerRadii(12), Insets.EMPTY);
+        container.setBackground(new Background(fill));
+        container.setEffect(new DropShadow(12, Color.rgb(0,0,0,0.6)));
+
+        Label title = new Label("Change Player");
+        title.setTextFill(Color.web("#FFDDAA"));
+        title.setStyle("-fx-font-weight: bold;");
+        title.setWrapText(true);
+        title.setMaxWidth(380);
+        try { title.setFont(assets.uiMedium); } catch (Exception ignored){ title.setStyle(title.getStyle() + "-fx-font-size:18px;"); }
+
+        Label hint = new Label("Enter a name to save highscore under:");
+        hint.setTextFill(Color.web("#E0E0FF"));
+        try { hint.setFont(assets.uiSmall); } catch (Exception ignored){ }
+
+        nameField = new TextField();
+        nameField.setPromptText("Your name");
+        nameField.setPrefWidth(380);
+        nameField.setStyle("-fx-background-radius: 8; -fx-padding: 8 10 8 10; -fx-focus-color: #82CFFD;");
+
+        HBox buttons = new HBox(10);
+        buttons.setAlignment(Pos.CENTER_RIGHT);
+
+        Button cancel = new Button("Cancel");
+        cancel.setStyle("-fx-background-radius:8; -fx-background-color: #444; -fx-text-fill: white;");
+        cancel.setOnAction(e -> close());
+
+        Button save = new Button("Save");
+        save.setStyle("-fx-background-radius:8; -fx-background-color: linear-gradient(#66CCFF, #3388EE); -fx-text-fill: white; -fx-font-weight: bold;");
+        save.setOnAction(e -> saveName());
+        nameField.setOnAction(e -> saveName());
+
+        buttons.getChildren().addAll(cancel, save);
+
+        if (assets != null && assets.dialogLogo != null) {
+            Image logo = assets.dialogLogo;
+            ImageView iv = new ImageView(logo);
+            double maxW = 60;
+            double scale = Math.min(maxW / logo.getWidth(), 1.0);
+            iv.setFitWidth(logo.getWidth() * scale);
+            iv.setPreserveRatio(true);
+            iv.setSmooth(true);
+            iv.setCache(true);
+            iv.setCacheHint(CacheHint.SPEED);
+
+            HBox top = new HBox(12);
+            top.setAlignment(Pos.CENTER_LEFT);
+            top.getChildren().addAll(iv, title);
+            container.getChildren().addAll(top, hint, nameField, buttons);
+        } else {
+            container.getChildren().addAll(title, hint, nameField, buttons);
+        }
+
+        return wrap(container, 440, 220);
+    }
+
+    private void saveName() {
+        Consumer<String> callback = onNameSaved;
+        String name = nameField.getText();
+        close();
+        if (callback != null) callback.accept(name);
+    }
+
+    private StackPane buildDifficulty() {
+        VBox root = new VBox(12);
+        root.setPadding(new Insets(18));
+        root.setBackground(new Background(new BackgroundFill(Color.web("#1e2330", 0.98), new CornerRadii(10), Insets.EMPTY)));
+        root.setEffect(new DropShadow(12, Color.rgb(0,0,0,0.6)));
+
+        Label title = new Label("Select Difficulty");
+        title.setTextFill(Color.WHITE);
+        if (assets != null && assets.uiMedium != null) title.setFont(assets.uiMedium);
+
+        HBox buttons = new HBox(12);
+        buttons.setPadding(new Insets(6));
+        buttons.setAlignment(Pos.CENTER);
+
+        Button easy = new Button("Easy");
+        Button normal = new Button("Normal");
+        Button hard = new Button("Hard");
+
+        easy.setStyle("-fx-background-color: #76c893; -fx-text-fill: black; -fx-font-weight: bold; -fx-padding: 8 16;");
+        normal.setStyle("-fx-background-color: #FFD66B; -fx-text-fill: black; -fx-font-weight: bold; -fx-padding: 8 16;");
+        hard.setStyle("-fx-background-color: #F07167; -fx-text-fill: white; -fx-font-weight: bold; -fx-padding: 8 16;");
+
+        easy.setOnAction(e -> selectDifficulty(0.7));
+        normal.setOnAction(e -> selectDifficulty(1.0));
+        hard.setOnAction(e -> selectDifficulty(1.5));
+
+        buttons.getChildren().addAll(easy, normal, hard);
+
+        Button cancel = new Button("Cancel");
+        cancel.setStyle("-fx-background-color: #333; -fx-text-fill: white;");
+        cancel.setOnAction(e -> close());
+
+        root.getChildren().addAll(title, buttons, cancel);
+
+        return wrap(root, 420, 180);
+    }
+
+    private void selectDifficulty(double multiplier) {
+        Consumer<Double> callback = onDifficultySelected;
+        close();
+        if (callback != null) callback.accept(multiplier);
+    }
+}
@@ -1,128 +1,343 @@
 package com.fbo;
 
-import javafx.scene.canvas.GraphicsContext;
+import com.fbo.config.GameConfig;
+import com.fbo.graphics.ParticleRasterizer;
+import com.fbo.graphics.RenderCommandBuffer;
+import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Random;
 
 public class ParticleSystem {
-    private final List<Effect> effects = new ArrayList<>();
     private final Random rand = new Random();
+    // one death on screen at a time, so one effect restarted per death
+    private final DeathEffect death = new DeathEffect(rand);
+    // null when particles are drawn as individual ovals through the command buffer
+    private final ParticleRasterizer raster;
+    private final Image sprite;
 
-    public ParticleSystem() {}
+    // every particle lives in these arrays; the budget is the capacity
+    private final int budget = GameConfig.PARTICLE_BUDGET;
+    private final double[] px = new double[budget];
+    private final double[] py = new double[budget];
+    private final double[] vx = new double[budget];
+    private final double[] vy = new double[budget];
+    private final double[] age = new double[budget];
+    private final double[] life = new double[budget];
+    private final EmitterDef[] def = new EmitterDef[budget];
+    private final byte[] paletteIndex = new byte[budget];
+    private int count = 0;
+    private final int[] liveByPriority = new int[EmitterDef.PRIORITY_COUNT];
+    private long culled = 0;
+
+    private final Emitter[] emitters = new Emitter[GameConfig.MAX_EMITTERS];
+    private Emitter ambient;
+    private double viewW = 0, viewH = 0;
+
+    public ParticleSystem() {
+        this(null, GameConfig.SOFTWARE_PARTICLES);
+    }
+
+    public ParticleSystem(Image sprite) {
+        this(sprite, GameConfig.SOFTWARE_PARTICLES);
+    }
+
+    public ParticleSystem(Image sprite, boolean softwareParticles) {
+        this.sprite = sprite;
+        raster = softwareParticles ? new ParticleRasterizer(ParticleRasterizer.BLEND_ALPHA) : null;
+        for (int i = 0; i < emitters.length; i++) emitters[i] = new Emitter();
+    }
 
     public void spawnDeathEffect(double cx, double cy, double difficultyMultiplier) {
-        effects.add(new DeathEffect(cx, cy, rand, difficultyMultiplier));
+        death.start(cx, cy, difficultyMultiplier);
+        Emitter e = emit(EmitterDef.DEATH_DEBRIS, cx, cy);
+        if (e != null) e.burst = EmitterDef.DEATH_DEBRIS.burst + (int) (difficultyMultiplier * 6);
+    }
+
+    public void spawnFlapTrail(double x, double y) {
+        emit(EmitterDef.FLAP_DUST, x, y);
+    }
+
+    public void spawnScoreBurst(double x, double y) {
+        emit(EmitterDef.SCORE_BURST, x, y);
+    }
+
+    public void startAmbient() {
+        if (ambient != null) return;
+        ambient = emit(EmitterDef.AMBIENT_MOTES, 0, 0);
+    }
+
+    public void stopAmbient() {
+        if (ambient == null) return;
+        ambient.active = false;
+        ambient = null;
+    }
+
+    private Emitter emit(EmitterDef d, double x, double y) {
+        Emitter slot = null;
+        for (Emitter e : emitters) {
+            if (!e.active) { slot = e; break; }
+            // all slots taken: take over the lowest priority one that finishes soonest
+            if (e != ambient && e.def.priority <= d.priority
+                    && (slot == null || e.def.priority < slot.def.priority
+                    || (e.def.priority == slot.def.priority && e.elapsed > slot.elapsed))) {
+                slot = e;
+            }
+        }
+        if (slot == null) return null;
+        slot.start(d, x, y);
+        return slot;
     }
 
-    public void update(double dt) {
-        Iterator<Effect> it = effects.iterator();
-        while (it.hasNext()) {
-            Effect e = it.next();
-            e.update(dt);
-            if (!e.isAlive()) it.remove();
+    public void update(double dt, double viewW, double viewH) {
+        this.viewW = viewW;
+        this.viewH = viewH;
+
+        if (death.isAlive()) death.update(dt);
+
+        for (Emitter e : emitters) {
+            if (e.active) e.update(dt);
+        }
+
+        int i = 0;
+        while (i < count) {
+            age[i] += dt;
+            if (age[i] >= life[i]) {
+                remove(i);
+                continue;
+            }
+            EmitterDef d = def[i];
+            vy[i] += d.gravity * dt;
+            px[i] += vx[i] * dt;
+            py[i] += vy[i] * dt;
+            i++;
         }
     }
 
-    public void render(GraphicsContext gc) {
-        for (Effect e : effects) e.render(gc);
+    private void spawn(EmitterDef d, double x, double y) {
+        int slot;
+        if (count < budget) {
+            slot = count++;
+        } else {
+            slot = findVictim(d.priority);
+            if (slot < 0) {
+                culled++;
+                return;
+            }
+            liveByPriority[def[slot].priority]--;
+            culled++;
+        }
+
+        double angle = Math.toRadians(d.directionDeg + (rand.nextDouble() - 0.5) * d.spreadDeg);
+        double speed = d.speedMin + rand.nextDouble() * (d.speedMax - d.speedMin);
+        px[slot] = x + (rand.nextDouble() - 0.5) * 2 * d.jitterX;
+        py[slot] = y + (rand.nextDouble() - 0.5) * 2 * d.jitterY;
+        vx[slot] = Math.cos(angle) * speed;
+        vy[slot] = Math.sin(angle) * speed + d.lift;
+        age[slot] = 0;
+        life[slot] = d.lifeMin + rand.nextDouble() * (d.lifeMax - d.lifeMin);
+        def[slot] = d;
+        paletteIndex[slot] = (byte) rand.nextInt(d.paletteSize());
+        liveByPriority[d.priority]++;
+    }
+
+    // a full budget only makes room for more important particles: within the lowest priority, the one furthest
+    // through its life, which has faded the most and would have gone soonest anyway
+    private int findVictim(int priority) {
+        int lowest = -1;
+        for (int p = 0; p < priority; p++) {
+            if (liveByPriority[p] > 0) { lowest = p; break; }
+        }
+        if (lowest < 0) return -1;
+        int victim = -1;
+        double oldest = -1;
+        for (int i = 0; i < count; i++) {
+            if (def[i].priority != lowest) continue;
+            double elapsed = age[i] / life[i];
+            if (elapsed > oldest) {
+                oldest = elapsed;
+                victim = i;
+            }
+        }
+        return victim;
+    }
+
+    private void remove(int i) {
+        liveByPriority[def[i].priority]--;
+        int last = --count;
+        if (i != last) {
+            px[i] = px[last];
+            py[i] = py[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            age[i] = age[last];
+            life[i] = life[last];
+            def[i] = def[last];
+            paletteIndex[i] = paletteIndex[last];
+        }
+        def[last] = null;
+    }
+
+    public void render(RenderCommandBuffer r, double viewW, double viewH) {
+        if (death.isAlive()) death.render(r);
+
+        if (raster != null) raster.begin(viewW, viewH);
+        boolean alphaTouched = false;
+        boolean sprites = false;
+        for (int i = 0; i < count; i++) {
+            EmitterDef d = def[i];
+            if (d.sprite && sprite != null) {
+                sprites = true;
+                continue;
+            }
+            double t = age[i] / life[i];
+            double a = Math.max(0, d.sample(d.alphaStart, d.alphaEnd, t));
+            double radius = d.sample(d.sizeStart, d.sizeEnd, t) * 0.5;
+            int c = paletteIndex[i];
+            if (raster != null) {
+                raster.add(px[i], py[i], radius, d.paletteRgb[c], a);
+            } else {
+                r.setGlobalAlpha(a);
+                r.setFill(d.palette[c]);
+                r.fillOval(px[i] - radius, py[i] - radius, radius * 2, radius * 2);
+                alphaTouched = true;
+            }
+        }
+        if (raster != null) raster.finish(r);
+
+        if (sprites) {
+            for (int i = 0; i < count; i++) {
+                EmitterDef d = def[i];
+                if (!d.sprite) continue;
+                double t = age[i] / life[i];
+                double size = d.sample(d.sizeStart, d.sizeEnd, t);
+                r.setGlobalAlpha(Math.max(0, d.sample(d.alphaStart, d.alphaEnd, t)));
+                r.drawImage(sprite, px[i] - size / 2, py[i] - size / 2, size, size);
+            }
+            alphaTouched = true;
+        }
+        if (alphaTouched) r.setGlobalAlpha(1.0);
     }
 
     public void clear() {
-        effects.clear();
+        death.stop();
+        for (Emitter e : emitters) {
+            if (e != ambient) e.active = false;
+        }
+        while (count > 0) remove(count - 1);
     }
 
-    private interface Effect {
-        void update(double dt);
-        void render(GraphicsContext gc);
-        boolean isAlive();
+    public int getParticleCount() { return count; }
+
+    public long getCulled() { return culled; }
+
+    public ParticleRasterizer getRasterizer() {
+        return raster;
     }
 
-    private static final class Debris {
+    private final class Emitter {
+        EmitterDef def;
         double x, y;
-        double vx, vy;
-        double life;
-        final double maxLife;
-        final Color color;
-        Debris(double x, double y, double vx, double vy, double life, Color color) {
-            this.x = x; this.y = y; this.vx = vx; this.vy = vy; this.life = life; this.maxLife = life; this.color = color;
+        double elapsed;
+        double accumulator;
+        int burst;
+        boolean active;
+
+        void start(EmitterDef d, double x, double y) {
+            this.def = d;
+            this.x = x;
+            this.y = y;
+            elapsed = 0;
+            accumulator = 0;
+            burst = d.burst;
+            active = true;
         }
+
         void update(double dt) {
-            vy += 900 * dt; // gravity 
-            x += vx * dt;
-            y += vy * dt;
-            life -= dt;
+            if (burst > 0) {
+                for (int i = 0; i < burst; i++) spawnAt();
+                burst = 0;
+            }
+            if (def.rate > 0) {
+                accumulator += def.rate * dt;
+                while (accumulator >= 1) {
+                    spawnAt();
+                    accumulator -= 1;
+                }
+            }
+            elapsed += dt;
+            if (def.duration >= 0 && elapsed >= def.duration) active = false;
         }
-        void render(GraphicsContext gc) {
-            double alpha = Math.max(0, life / maxLife);
-            gc.setGlobalAlpha(alpha);
-            gc.setFill(color);
-            gc.fillOval(x - 3, y - 3, 6, 6);
-            gc.setGlobalAlpha(1.0);
+
+        private void spawnAt() {
+            if (this == ambient) {
+                // ambient motes spawn anywhere in the view rather than at a point
+                spawn(def, rand.nextDouble() * viewW, rand.nextDouble() * viewH);
+            } else {
+                spawn(def, x, y);
+            }
         }
-        boolean alive() { return life > 0; }
     }
 
-    private static final class DeathEffect implements Effect {
-        private final double cx, cy;
+    private static final class DeathEffect {
+        private static final Color GLOW = Color.color(0.95, 0.7, 0.3, 1.0);
+        // streak hues from 30 to 80, picked per streak per frame
+        private static final Color[] STREAK_PALETTE = new Color[16];
+
+        static {
+            for (int i = 0; i < STREAK_PALETTE.length; i++) {
+                STREAK_PALETTE[i] = Color.hsb(30 + 50.0 * i / (STREAK_PALETTE.length - 1), 0.9, 1.0);
+            }
+        }
+
         private final Random rand;
-        private final double difficulty;
-        private double time = 0.0;
-        private boolean alive = true;
+        private double cx, cy;
+        private double difficulty;
+        private double time;
+        private boolean started;
 
         private final double glowDuration = 0.45;
         private final double streakDuration = 0.75;
-        private final double debrisDuration = 1.6;
 
-        private final List<Debris> debris = new ArrayList<>();
         private final int streakCount = 16;
 
-        DeathEffect(double cx, double cy, Random rand, double difficulty) {
-            this.cx = cx; this.cy = cy; this.rand = rand; this.difficulty = difficulty;
-            int baseCount = 18;
-            int count = baseCount + (int)(difficulty * 6);
-            for (int i = 0; i < count; i++) {
-                double angle = rand.nextDouble() * Math.PI * 2.0;
-                double speed = 120 + rand.nextDouble() * 280;
-                double vx = Math.cos(angle) * speed;
-                double vy = Math.sin(angle) * speed - 100;
-                double life = 0.7 + rand.nextDouble() * 1.3;
-                Color color = Color.hsb(rand.nextDouble() * 60 + 10, 0.9, 0.9);
-                debris.add(new Debris(cx, cy, vx, vy, life, color));
-            }
+        DeathEffect(Random rand) {
+            this.rand = rand;
+        }
+
+        void start(double cx, double cy, double difficulty) {
+            this.cx = cx; this.cy = cy; this.difficulty = difficulty;
+            time = 0.0;
+            started = true;
         }
 
-        @Override
-        public void update(double dt) {
+        void stop() {
+            started = false;
+        }
+
+        void update(double dt) {
             time += dt;
-            for (Debris d : debris) d.update(dt);
-            debris.removeIf(d -> !d.alive());
-            if (time > Math.max(glowDuration + streakDuration, debrisDuration)) alive = false;
         }
 
-        @Override
-        public void render(GraphicsContext gc) {
-            // glow 
+        void render(RenderCommandBuffer r) {
+            // glow
             if (time <= glowDuration) {
                 double t = Math.min(1.0, time / glowDuration);
                 double eased = easeOutCubic(t);
                 double radius = 36 + eased * 160 * (1.0 + difficulty * 0.25);
                 double alpha = Math.max(0.0, 0.9 * (1.0 - t));
-                gc.setGlobalAlpha(alpha * 0.9);
-                gc.setFill(Color.color(0.95, 0.7, 0.3, 1.0));
-                gc.fillOval(cx - radius, cy - radius, radius * 2, radius * 2);
-                gc.setGlobalAlpha(1.0);
+                r.setGlobalAlpha(alpha * 0.9);
+                r.setFill(GLOW);
+                r.fillOval(cx - radius, cy - radius, radius * 2, radius * 2);
+                r.setGlobalAlpha(1.0);
             }
 
-            // streak 
+            // streak
             if (time > glowDuration && time <= glowDuration + streakDuration) {
                 double local = (time - glowDuration) / streakDuration;
                 double alpha = Math.max(0.0, 1.0 - local);
-                gc.setGlobalAlpha(alpha);
-                gc.setLineWidth(1.5 + (1.0 - local) * 2.0);
+                r.setGlobalAlpha(alpha);
+                r.setLineWidth(1.5 + (1.0 - local) * 2.0);
                 for (int i = 0; i < streakCount; i++) {
                     double a = (2 * Math.PI * i) / streakCount + (rand.nextDouble() - 0.5) * 0.15;
                     double p = easeOutCubic(local);
@@ -131,19 +346,15 @@ public class ParticleSystem {
                     double ay = cy + Math.sin(a) * 12;
                     double bx = cx + Math.cos(a) * (length + 12);
                     double by = cy + Math.sin(a) * (length + 12);
-                    gc.setStroke(Color.hsb(30 + rand.nextDouble() * 50, 0.9, 1.0));
-                    gc.strokeLine(ax, ay, bx, by);
+                    r.setStroke(STREAK_PALETTE[rand.nextInt(STREAK_PALETTE.length)]);
+                    r.strokeLine(ax, ay, bx, by);
                 }
-                gc.setGlobalAlpha(1.0);
+                r.setGlobalAlpha(1.0);
             }
-
-            // debris
-            for (Debris d : debris) d.render(gc);
         }
 
-        @Override
-        public boolean isAlive() {
-            return alive || !debris.isEmpty();
+        boolean isAlive() {
+            return started && time <= glowDuration + streakDuration;
         }
 
         private static double easeOutCubic(double t) {
@@ -0,0 +1,179 @@
+package com.fbo;
+
+import com.fbo.graphics.AssetManager;
+import com.fbo.graphics.RenderCommandBuffer;
+import com.fbo.graphics.RenderExecutor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public final class WidgetLayer {
+    public static final int NONE = -1;
+
+    public static final int START_GAME = 0;
+    public static final int DIFFICULTY = 1;
+    public static final int CHANGE_PLAYER = 2;
+    public static final int QUIT = 3;
+    public static final int EASY = 4;
+    public static final int NORMAL = 5;
+    public static final int HARD = 6;
+    private static final int COUNT = 7;
+
+    public static final int GROUP_MENU = 1;
+    public static final int GROUP_DIFFICULTY = 2;
+
+    private static final double CELL = 64;
+
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final AssetManager assets;
+    private final RenderCommandBuffer commands = new RenderCommandBuffer();
+    private final RenderExecutor executor = new RenderExecutor();
+
+    private final double[] x = new double[COUNT];
+    private final double[] y = new double[COUNT];
+    private final double[] w = new double[COUNT];
+    private final double[] h = new double[COUNT];
+    private final int[] group = new int[COUNT];
+    private final String[] labels = new String[COUNT];
+    private final String[] types = new String[COUNT];
+
+    // uniform grid stored as compressed rows: widgets of cell c are cellItems[cellStart[c] .. cellStart[c + 1])
+    private int cols = 0, rows = 0;
+    private int[] cellStart = new int[1];
+    private int[] cellItems = new int[0];
+
+    private int visibleGroups = 0;
+    private int hovered = NONE;
+    private int pressed = NONE;
+    private boolean dirty = true;
+    private int repaints = 0;
+
+    public WidgetLayer(Canvas canvas, AssetManager assets) {
+        this.canvas = canvas;
+        this.gc = canvas.getGraphicsContext2D();
+        this.assets = assets;
+        canvas.setMouseTransparent(true);
+
+        for (int i = 0; i < LayoutCache.MENU_LABELS.length; i++) {
+            labels[START_GAME + i] = LayoutCache.MENU_LABELS[i];
+            types[START_GAME + i] = "start";
+            group[START_GAME + i] = GROUP_MENU;
+        }
+        for (int i = 0; i < LayoutCache.DIFFICULTY_LABELS.length; i++) {
+            labels[EASY + i] = LayoutCache.DIFFICULTY_LABELS[i];
+            types[EASY + i] = "difficulty";
+            group[EASY + i] = GROUP_DIFFICULTY;
+        }
+    }
+
+    public void layout(LayoutCache layout) {
+        for (int i = 0; i < LayoutCache.MENU_LABELS.length; i++) {
+            x[START_GAME + i] = layout.menuButtonX;
+            y[START_GAME + i] = layout.menuButtonY[i];
+            w[START_GAME + i] = layout.menuButtonW;
+            h[START_GAME + i] = LayoutCache.MENU_BUTTON_H;
+        }
+        for (int i = 0; i < LayoutCache.DIFFICULTY_LABELS.length; i++) {
+            x[EASY + i] = layout.difficultyButtonX;
+            y[EASY + i] = layout.difficultyButtonY[i];
+            w[EASY + i] = LayoutCache.DIFFICULTY_BUTTON_W;
+            h[EASY + i] = LayoutCache.DIFFICULTY_BUTTON_H;
+        }
+        buildGrid();
+        dirty = true;
+    }
+
+    private void buildGrid() {
+        double maxX = 0, maxY = 0;
+        for (int i = 0; i < COUNT; i++) {
+            maxX = Math.max(maxX, x[i] + w[i]);
+            maxY = Math.max(maxY, y[i] + h[i]);
+        }
+        cols = (int) (maxX / CELL) + 1;
+        rows = (int) (maxY / CELL) + 1;
+
+        int cells = cols * rows;
+        cellStart = new int[cells + 1];
+        for (int i = 0; i < COUNT; i++) {
+            forEachCell(i, c -> cellStart[c + 1]++);
+        }
+        for (int c = 0; c < cells; c++) cellStart[c + 1] += cellStart[c];
+
+        cellItems = new int[cellStart[cells]];
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        for (int i = 0; i < COUNT; i++) {
+            final int id = i;
+            forEachCell(i, c -> cellItems[fill[c]++] = id);
+        }
+    }
+
+    private void forEachCell(int i, IntConsumer action) {
+        int c0 = Math.max(0, (int) (x[i] / CELL));
+        int c1 = Math.min(cols - 1, (int) ((x[i] + w[i]) / CELL));
+        int r0 = Math.max(0, (int) (y[i] / CELL));
+        int r1 = Math.min(rows - 1, (int) ((y[i] + h[i]) / CELL));
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) action.accept(r * cols + c);
+        }
+    }
+
+    public int hitTest(double mx, double my) {
+        if (mx < 0 || my < 0) return NONE;
+        int c = (int) (mx / CELL);
+        int r = (int) (my / CELL);
+        if (c >= cols || r >= rows) return NONE;
+
+        int cell = r * cols + c;
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            int i = cellItems[k];
+            if ((group[i] & visibleGroups) == 0) continue;
+            if (mx >= x[i] && mx <= x[i] + w[i] && my >= y[i] && my <= y[i] + h[i]) return i;
+        }
+        return NONE;
+    }
+
+    public void setVisibleGroups(int groups) {
+        if (groups == visibleGroups) return;
+        visibleGroups = groups;
+        if (hovered != NONE && (group[hovered] & groups) == 0) hovered = NONE;
+        if (pressed != NONE && (group[pressed] & groups) == 0) pressed = NONE;
+        dirty = true;
+    }
+
+    public void setHovered(int id) {
+        if (id == hovered) return;
+        hovered = id;
+        dirty = true;
+    }
+
+    public void setPressed(int id) {
+        if (id == pressed) return;
+        pressed = id;
+        dirty = true;
+    }
+
+    public int getPressed() { return pressed; }
+
+    public int getRepaints() { return repaints; }
+
+    public void paint() {
+        if (!dirty) return;
+        dirty = false;
+        repaints++;
+
+        double cw = canvas.getWidth(), ch = canvas.getHeight();
+        commands.reset();
+        commands.clearRect(0, 0, cw, ch);
+        for (int i = 0; i < COUNT; i++) {
+            if ((group[i] & visibleGroups) == 0) continue;
+            boolean isPressed = i == pressed;
+            String state = isPressed ? "pressed" : "normal";
+            UI.drawButtonFromSheet(commands, types[i], state, x[i], y[i], w[i], h[i], assets);
+            UI.drawButtonText(commands, labels[i], x[i], y[i], w[i], h[i], i == hovered, isPressed, assets);
+        }
+        executor.replay(commands, gc, cw, ch);
+    }
+}
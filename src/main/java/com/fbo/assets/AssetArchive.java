@@ -0,0 +1,186 @@
+package com.fbo.assets;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+
+// The archive AssetPacker writes, mapped read-only. Entries are served as slices of the mapping, so nothing
+// is read from disk until it is touched. Images packed with pixels become Images wrapping the mapping directly:
+// no PNG decode and no copy on the heap.
+//
+// Layout: header (magic, version, entry count), then per entry the resource path, natural width and height,
+// offset and length of the original bytes, and the packed levels: a count, then width, height and offset of
+// premultiplied BGRA pixels for each, largest first, each half the size of the one before.
+public final class AssetArchive {
+    static final int MAGIC = 0x4642504B;
+    static final int VERSION = 1;
+    static final String FILE_NAME = "flappybirdfx.pak";
+
+    private static final class Holder {
+        static final AssetArchive INSTANCE = open(locate());
+    }
+
+    // null when running from classes without a packed archive; callers fall back to classpath resources
+    public static AssetArchive get() { return Holder.INSTANCE; }
+
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private AssetArchive(Path file, MappedByteBuffer data) {
+        this.file = file;
+        this.data = data;
+        ByteBuffer b = data.duplicate();
+        if (b.getInt() != MAGIC || b.getInt() != VERSION) throw new IllegalArgumentException("not an asset archive");
+        int count = b.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[b.getShort() & 0xFFFF];
+            b.get(name);
+            Entry e = new Entry(b.getInt(), b.getInt(), b.getLong(), b.getLong());
+            int levels = b.getInt();
+            e.levelW = new int[levels];
+            e.levelH = new int[levels];
+            e.levelOffset = new long[levels];
+            for (int l = 0; l < levels; l++) {
+                e.levelW[l] = b.getInt();
+                e.levelH[l] = b.getInt();
+                e.levelOffset[l] = b.getLong();
+            }
+            entries.put(new String(name, StandardCharsets.UTF_8), e);
+        }
+    }
+
+    private static Path locate() {
+        String configured = System.getProperty("flappybirdfx.assets");
+        if (configured != null && !configured.isBlank()) return Paths.get(configured);
+        // jlink and jpackage images carry it next to the runtime's modules
+        Path bundled = Paths.get(System.getProperty("java.home"), "lib", FILE_NAME);
+        return Files.exists(bundled) ? bundled : null;
+    }
+
+    private static AssetArchive open(Path file) {
+        if (file == null) return null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new AssetArchive(file, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        } catch (Exception e) {
+            System.err.println("Failed to open asset archive " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean contains(String path) { return entries.containsKey(path); }
+
+    public InputStream open(String path) {
+        Entry e = entries.get(path);
+        return e != null ? new BufferInputStream(slice(e.offset, e.length)) : null;
+    }
+
+    public int[] naturalSize(String path) {
+        Entry e = entries.get(path);
+        return e != null && e.width > 0 ? new int[]{e.width, e.height} : null;
+    }
+
+    // the smallest packed level covering w x h (0 for natural size), wrapped without copying; null when no
+    // level is large enough and the caller should decode the original bytes instead
+    public Image image(String path, int w, int h) {
+        Entry e = entries.get(path);
+        if (e == null) return null;
+        int best = -1;
+        for (int l = 0; l < e.levelW.length; l++) {
+            boolean covers = w <= 0 || h <= 0 ? e.levelW[l] == e.width && e.levelH[l] == e.height
+                    : e.levelW[l] >= w && e.levelH[l] >= h;
+            if (covers) best = l;
+        }
+        if (best < 0) return null;
+        int lw = e.levelW[best], lh = e.levelH[best];
+        ByteBuffer pixels = slice(e.levelOffset[best], (long) lw * lh * 4);
+        return new WritableImage(new PixelBuffer<>(lw, lh, pixels, PixelFormat.getByteBgraPreInstance()));
+    }
+
+    // media players need a URL, so media entries live as files next to the archive's other extractions. Kept
+    // between launches and only rewritten when the archive changes.
+    public Path extract(String path) {
+        Entry e = entries.get(path);
+        if (e == null) return null;
+        try {
+            String stamp = Long.toHexString(Files.getLastModifiedTime(file).toMillis() ^ Files.size(file));
+            Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "flappybirdfx-assets-" + stamp);
+            Path target = dir.resolve(path.startsWith("/") ? path.substring(1) : path);
+            if (Files.exists(target) && Files.size(target) == e.length) return target;
+
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), "extract", ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer src = slice(e.offset, e.length);
+                while (src.hasRemaining()) out.write(src);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return target;
+        } catch (IOException ex) {
+            System.err.println("Failed to extract " + path + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private ByteBuffer slice(long offset, long length) {
+        return data.slice((int) offset, (int) length);
+    }
+
+    private static final class Entry {
+        final int width, height;
+        final long offset, length;
+        int[] levelW, levelH;
+        long[] levelOffset;
+
+        Entry(int width, int height, long offset, long length) {
+            this.width = width;
+            this.height = height;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buf;
+
+        BufferInputStream(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buf.hasRemaining()) return -1;
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buf.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            int k = (int) Math.max(0, Math.min(n, buf.remaining()));
+            buf.position(buf.position() + k);
+            return k;
+        }
+    }
+}
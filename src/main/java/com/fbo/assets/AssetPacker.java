@@ -0,0 +1,177 @@
+package com.fbo.assets;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// Build step: packs a resource directory into one archive for AssetArchive. Run by the package phase against
+// the jlink image; see the pom.
+// java -m com.fbo.flappybirdfx/com.fbo.assets.AssetPacker <resources dir> <archive> [--raw-max-ratio 8]
+//
+// Images are packed as a chain of premultiplied BGRA levels, each half the size of the previous, so the game
+// can take the smallest one covering the size it draws at. Raw pixels make an image free to create but cost
+// 4 bytes per pixel against a fraction of that for a PNG: a level is packed only when it is at most
+// raw-max-ratio times the file's size, so large flat art stays PNG at full size and the archive stays small
+// enough to read quickly off slow storage.
+public final class AssetPacker {
+    private static final int ALIGN = 64;
+    private static final int MIN_LEVEL_SIZE = 8;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: AssetPacker <resources dir> <archive> [--raw-max-ratio R]");
+            System.exit(2);
+        }
+        Path root = Paths.get(args[0]);
+        Path out = Paths.get(args[1]);
+        double rawMaxRatio = 8;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            if ("--raw-max-ratio".equals(args[i])) rawMaxRatio = Double.parseDouble(args[i + 1]);
+            else throw new IllegalArgumentException("unknown option: " + args[i]);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> s = Files.walk(root)) {
+            s.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+
+        List<Item> items = new ArrayList<>();
+        for (Path f : files) {
+            String name = "/" + root.relativize(f).toString().replace('\\', '/');
+            byte[] bytes = Files.readAllBytes(f);
+            Item item = new Item(name, bytes);
+            if (name.toLowerCase(Locale.ROOT).endsWith(".png")) decode(item, rawMaxRatio);
+            items.add(item);
+        }
+        write(out, items);
+    }
+
+    private static void decode(Item item, double rawMaxRatio) {
+        Image img = new Image(new ByteArrayInputStream(item.bytes));
+        if (img.isError()) {
+            System.err.println("Not decodable, packed as bytes: " + item.name);
+            return;
+        }
+        item.width = (int) img.getWidth();
+        item.height = (int) img.getHeight();
+        PixelReader pr = img.getPixelReader();
+        int w = item.width, h = item.height;
+        byte[] px = new byte[w * h * 4];
+        pr.getPixels(0, 0, w, h, PixelFormat.getByteBgraPreInstance(), px, 0, w * 4);
+
+        double limit = rawMaxRatio * item.bytes.length;
+        while (true) {
+            if (px.length <= limit) item.levels.add(new Level(w, h, px));
+            if (w <= MIN_LEVEL_SIZE || h <= MIN_LEVEL_SIZE) break;
+            int nw = w / 2, nh = h / 2;
+            px = halve(px, w, nw, nh);
+            w = nw;
+            h = nh;
+        }
+    }
+
+    // 2x2 box filter; premultiplied, so a plain average is correct. An odd last row or column is dropped.
+    private static byte[] halve(byte[] src, int sw, int dw, int dh) {
+        byte[] out = new byte[dw * dh * 4];
+        for (int y = 0; y < dh; y++) {
+            int r0 = (2 * y) * sw * 4, r1 = r0 + sw * 4;
+            for (int x = 0; x < dw; x++) {
+                int a = r0 + 8 * x, b = r1 + 8 * x, o = (y * dw + x) * 4;
+                for (int c = 0; c < 4; c++) {
+                    int sum = (src[a + c] & 0xFF) + (src[a + 4 + c] & 0xFF) + (src[b + c] & 0xFF) + (src[b + 4 + c] & 0xFF);
+                    out[o + c] = (byte) ((sum + 2) >> 2);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void write(Path out, List<Item> items) throws IOException {
+        int header = 12;
+        for (Item it : items) header += 2 + it.name.getBytes(StandardCharsets.UTF_8).length + 4 + 4 + 8 + 8 + 4 + it.levels.size() * 16;
+
+        long pos = align(header);
+        for (Item it : items) {
+            it.offset = pos;
+            pos = align(pos + it.bytes.length);
+            for (Level l : it.levels) {
+                l.offset = pos;
+                pos = align(pos + l.pixels.length);
+            }
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(header);
+        index.putInt(AssetArchive.MAGIC).putInt(AssetArchive.VERSION).putInt(items.size());
+        for (Item it : items) {
+            byte[] name = it.name.getBytes(StandardCharsets.UTF_8);
+            index.putShort((short) name.length).put(name);
+            index.putInt(it.width).putInt(it.height);
+            index.putLong(it.offset).putLong(it.bytes.length);
+            index.putInt(it.levels.size());
+            for (Level l : it.levels) index.putInt(l.width).putInt(l.height).putLong(l.offset);
+        }
+        index.flip();
+
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        // not createTempFile: the archive is installed with the runtime and must stay readable by everyone
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        long packed = 0, raw = 0;
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ch.write(index, 0);
+            for (Item it : items) {
+                ch.write(ByteBuffer.wrap(it.bytes), it.offset);
+                packed += it.bytes.length;
+                StringBuilder levels = new StringBuilder();
+                for (Level l : it.levels) {
+                    ch.write(ByteBuffer.wrap(l.pixels), l.offset);
+                    raw += l.pixels.length;
+                    levels.append(levels.length() == 0 ? " + levels " : ", ").append(l.width).append('x').append(l.height);
+                }
+                System.out.printf(Locale.ROOT, "  %-28s %9d bytes%s%n", it.name, it.bytes.length, levels);
+            }
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.printf(Locale.ROOT, "Packed %d assets into %s: %.1f KB files, %.1f KB raw pixels%n",
+                items.size(), out, packed / 1024.0, raw / 1024.0);
+    }
+
+    private static long align(long pos) {
+        return (pos + ALIGN - 1) & -ALIGN;
+    }
+
+    private static final class Item {
+        final String name;
+        final byte[] bytes;
+        int width, height;
+        final List<Level> levels = new ArrayList<>();
+        long offset;
+
+        Item(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Level {
+        final int width, height;
+        final byte[] pixels;
+        long offset;
+
+        Level(int width, int height, byte[] pixels) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+    }
+}
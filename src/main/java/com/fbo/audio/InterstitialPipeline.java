@@ -0,0 +1,177 @@
+package com.fbo.audio;
+
+import javafx.application.Platform;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+
+public class InterstitialPipeline {
+    private final Media video;
+    private final Media audio;
+
+    private MediaPlayer videoPlayer;
+    private MediaPlayer audioPlayer;
+    private boolean videoReady = false;
+    private boolean audioReady = false;
+
+    // bumped on every release so a preroll finishing late never installs stale players
+    private int generation = 0;
+    private boolean prerolling = false;
+    private boolean started = false;
+    private boolean playing = false;
+
+    private Runnable onStarted;
+    private Runnable onEnd;
+
+    public InterstitialPipeline(Media video, Media audio) {
+        this.video = video;
+        this.audio = audio;
+    }
+
+    public void preroll() {
+        if (prerolling || videoPlayer != null || audioPlayer != null) return;
+        if (video == null && audio == null) return;
+        prerolling = true;
+        final int gen = generation;
+
+        Thread t = new Thread(() -> {
+            MediaPlayer v = createPlayer(video);
+            MediaPlayer a = createPlayer(audio);
+            Platform.runLater(() -> install(gen, v, a));
+        }, "interstitial-preroll");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private MediaPlayer createPlayer(Media media) {
+        if (media == null) return null;
+        try {
+            return new MediaPlayer(media);
+        } catch (Exception e) {
+            System.err.println("Failed to preroll interstitial player: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void install(int gen, MediaPlayer v, MediaPlayer a) {
+        if (gen != generation) {
+            disposeQuietly(v);
+            disposeQuietly(a);
+            return;
+        }
+        prerolling = false;
+        videoPlayer = v;
+        audioPlayer = a;
+
+        if (videoPlayer != null) {
+            MediaPlayer p = videoPlayer;
+            p.setOnReady(() -> {
+                videoReady = true;
+                if (!started) p.pause();
+                startIfPending();
+            });
+            p.setOnEndOfMedia(this::finish);
+            p.setOnError(() -> {
+                System.err.println("Interstitial video player error: " + p.getError());
+                finish();
+            });
+            caughtUp(p);
+        }
+
+        if (audioPlayer != null) {
+            MediaPlayer p = audioPlayer;
+            p.setOnReady(() -> {
+                audioReady = true;
+                if (!started) p.pause();
+                startIfPending();
+            });
+            if (videoPlayer == null) p.setOnEndOfMedia(this::finish);
+            p.setOnError(() -> {
+                System.err.println("Interstitial audio player error: " + p.getError());
+                if (videoPlayer == null) {
+                    finish();
+                } else {
+                    disposeQuietly(p);
+                    audioPlayer = null;
+                    startIfPending();
+                }
+            });
+            caughtUp(p);
+        }
+
+        if (videoPlayer == null && audioPlayer == null) finish();
+        else startIfPending();
+    }
+
+    // the player was built on the preroll thread and may have got ready, or failed, before its handlers were
+    // attached here; those events have already been delivered, so deliver them now
+    private void caughtUp(MediaPlayer p) {
+        MediaPlayer.Status status = p.getStatus();
+        if (status == MediaPlayer.Status.READY || status == MediaPlayer.Status.PAUSED) p.getOnReady().run();
+        else if (status == MediaPlayer.Status.HALTED) p.getOnError().run();
+    }
+
+    public boolean isReady() {
+        return (videoPlayer != null || audioPlayer != null)
+                && (videoPlayer == null || videoReady)
+                && (audioPlayer == null || audioReady);
+    }
+
+    public boolean isPlaying() { return playing; }
+
+    public MediaPlayer getVideoPlayer() { return videoPlayer; }
+
+    public void start(Runnable onStarted, Runnable onEnd) {
+        this.onStarted = onStarted;
+        this.onEnd = onEnd;
+        started = true;
+
+        if (video == null && audio == null) {
+            finish();
+            return;
+        }
+        preroll();
+        startIfPending();
+    }
+
+    private void startIfPending() {
+        if (!started || playing || !isReady()) return;
+        playing = true;
+
+        if (audioPlayer != null) audioPlayer.play();
+        if (videoPlayer != null) videoPlayer.play();
+
+        Runnable r = onStarted;
+        onStarted = null;
+        if (r != null) r.run();
+    }
+
+    private void finish() {
+        boolean wasStarted = started;
+        Runnable r = onEnd;
+        release();
+        if (wasStarted && r != null) r.run();
+    }
+
+    public void release() {
+        generation++;
+        prerolling = false;
+        disposeQuietly(videoPlayer);
+        disposeQuietly(audioPlayer);
+        videoPlayer = null;
+        audioPlayer = null;
+        videoReady = false;
+        audioReady = false;
+        started = false;
+        playing = false;
+        onStarted = null;
+        onEnd = null;
+    }
+
+    private static void disposeQuietly(MediaPlayer p) {
+        if (p == null) return;
+        try {
+            p.stop();
+            p.dispose();
+        } catch (Exception ignored) {}
+    }
+}
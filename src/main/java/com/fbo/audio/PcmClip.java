@@ -0,0 +1,50 @@
+package com.fbo.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+// A sound decoded once into the mixer's format, held off-heap so large clips don't sit in the young generation
+// or get copied by collections.
+public final class PcmClip {
+    public final String name;
+    final ShortBuffer samples;
+    final int frames;
+
+    private PcmClip(String name, ByteBuffer pcm) {
+        this.name = name;
+        this.samples = pcm.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        this.frames = samples.capacity() / SoftwareMixer.CHANNELS;
+    }
+
+    // anything javax.sound reads (WAV, AIFF, AU); resampled and converted to the mixer's format on the way in
+    public static PcmClip decode(String name, InputStream in) {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(new BufferedInputStream(in));
+             AudioInputStream pcm = AudioSystem.getAudioInputStream(SoftwareMixer.FORMAT, convertible(source))) {
+            byte[] bytes = pcm.readAllBytes();
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            return new PcmClip(name, direct);
+        } catch (Exception e) {
+            System.err.println("Failed to decode " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // javax.sound converts rate and layout separately from encoding, so go through signed 16-bit at the source
+    // rate first when the source needs both
+    private static AudioInputStream convertible(AudioInputStream source) {
+        AudioFormat f = source.getFormat();
+        if (AudioSystem.isConversionSupported(SoftwareMixer.FORMAT, f)) return source;
+        AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, f.getSampleRate(), 16, f.getChannels(),
+                f.getChannels() * 2, f.getSampleRate(), false);
+        return AudioSystem.getAudioInputStream(pcm16, source);
+    }
+
+    public double seconds() { return frames / (double) SoftwareMixer.SAMPLE_RATE; }
+}
@@ -0,0 +1,198 @@
+package com.fbo.audio;
+
+import com.fbo.config.GameConfig;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+// Sound effects without a MediaPlayer per play: clips are decoded once (PcmClip) and mixed by one audio thread
+// into a small-buffer line, so a flap is audible one period plus the line's buffer after it was triggered. The
+// line is fed silence when nothing plays so it never has to restart. Shared by every session in the JVM.
+//
+// Voices belong to a group; while anything asks for ducking (an interstitial playing), effects are ramped down
+// so the interstitial's audio stays on top.
+public final class SoftwareMixer {
+    public static final int SAMPLE_RATE = 44_100;
+    public static final int CHANNELS = 2;
+    public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+    public static final int SFX = 0;
+    public static final int INTERSTITIAL = 1;
+
+    // 256 frames is 5.8 ms; the line holds three periods, which is what most ALSA devices take without underruns
+    public static final int PERIOD_FRAMES = 256;
+    private static final int LINE_PERIODS = 3;
+    private static final int MAX_VOICES = 16;
+    private static final float DUCK_GAIN = 0.3f;
+    // per frame, about 30 ms from full to ducked
+    private static final float DUCK_STEP = (1 - DUCK_GAIN) / (0.03f * SAMPLE_RATE);
+
+    // where mixed periods go: a line, or memory for checks without a sound device
+    public interface Sink {
+        // blocks until length bytes fit; the period is mixed after this so a trigger doesn't wait behind a
+        // rendered period that is itself waiting for room
+        void awaitRoom(int length);
+        void write(byte[] pcm, int length);
+        void close();
+    }
+
+    private static final class Holder {
+        static final SoftwareMixer INSTANCE = open();
+    }
+
+    // null when disabled or no line could be opened; callers fall back to MediaPlayer
+    public static SoftwareMixer get() { return Holder.INSTANCE; }
+
+    private static SoftwareMixer open() {
+        if (!GameConfig.AUDIO_MIXER) return null;
+        try {
+            SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, PERIOD_FRAMES * CHANNELS * 2 * LINE_PERIODS);
+            line.start();
+            SoftwareMixer mixer = new SoftwareMixer();
+            mixer.start(new LineSink(line));
+            return mixer;
+        } catch (Exception e) {
+            System.err.println("No audio line for the software mixer, using MediaPlayer: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private final PcmClip[] clips = new PcmClip[MAX_VOICES];
+    private final int[] position = new int[MAX_VOICES];
+    private final float[] volume = new float[MAX_VOICES];
+    private final int[] group = new int[MAX_VOICES];
+    private final long[] ids = new long[MAX_VOICES];
+    private long nextId = 1;
+    private int ducking;
+    private float duckGain = 1;
+
+    private final float[] mix = new float[PERIOD_FRAMES * CHANNELS];
+    private volatile boolean running;
+    private Thread thread;
+
+    public SoftwareMixer() {}
+
+    public void start(Sink sink) {
+        running = true;
+        thread = new Thread(() -> {
+            byte[] out = new byte[PERIOD_FRAMES * CHANNELS * 2];
+            while (running) {
+                sink.awaitRoom(out.length);
+                render(out, PERIOD_FRAMES);
+                sink.write(out, out.length);
+            }
+            sink.close();
+        }, "audio-mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    public void halt() {
+        running = false;
+    }
+
+    // returns a voice id for stop(); a full mixer drops its oldest voice
+    public synchronized long play(PcmClip clip, double vol, int voiceGroup) {
+        if (clip == null) return 0;
+        int slot = 0;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (clips[v] == null) {
+                slot = v;
+                break;
+            }
+            if (ids[v] < ids[slot]) slot = v;
+        }
+        clips[slot] = clip;
+        position[slot] = 0;
+        volume[slot] = (float) vol;
+        group[slot] = voiceGroup;
+        ids[slot] = nextId++;
+        return ids[slot];
+    }
+
+    public synchronized void stop(long id) {
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (ids[v] == id) clips[v] = null;
+        }
+    }
+
+    public synchronized void duck(boolean on) {
+        ducking = Math.max(0, ducking + (on ? 1 : -1));
+    }
+
+    public synchronized int activeVoices() {
+        int n = 0;
+        for (PcmClip c : clips) if (c != null) n++;
+        return n;
+    }
+
+    // mixes the next frames into out as 16-bit little-endian stereo; the audio thread calls this once per period
+    public synchronized void render(byte[] out, int frames) {
+        int samples = frames * CHANNELS;
+        Arrays.fill(mix, 0, samples, 0f);
+
+        float target = ducking > 0 ? DUCK_GAIN : 1f;
+        float duckStart = duckGain;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            PcmClip clip = clips[v];
+            if (clip == null) continue;
+            int pos = position[v];
+            int n = Math.min(frames, clip.frames - pos);
+            float vol = volume[v];
+            boolean ducked = group[v] == SFX;
+            float g = duckStart;
+            for (int f = 0; f < n; f++) {
+                if (ducked) g = ramp(g, target);
+                float gain = ducked ? vol * g : vol;
+                int src = (pos + f) * CHANNELS, dst = f * CHANNELS;
+                for (int c = 0; c < CHANNELS; c++) mix[dst + c] += clip.samples.get(src + c) * gain;
+            }
+            position[v] = pos + n;
+            if (position[v] >= clip.frames) clips[v] = null;
+        }
+        for (int f = 0; f < frames; f++) duckGain = ramp(duckGain, target);
+
+        for (int i = 0; i < samples; i++) {
+            int s = Math.round(mix[i]);
+            if (s > Short.MAX_VALUE) s = Short.MAX_VALUE;
+            else if (s < Short.MIN_VALUE) s = Short.MIN_VALUE;
+            out[2 * i] = (byte) s;
+            out[2 * i + 1] = (byte) (s >> 8);
+        }
+    }
+
+    private static float ramp(float g, float target) {
+        if (g < target) return Math.min(target, g + DUCK_STEP);
+        if (g > target) return Math.max(target, g - DUCK_STEP);
+        return g;
+    }
+
+    private static final class LineSink implements Sink {
+        private final SourceDataLine line;
+
+        LineSink(SourceDataLine line) {
+            this.line = line;
+        }
+
+        @Override
+        public void awaitRoom(int length) {
+            while (line.available() < length) LockSupport.parkNanos(250_000);
+        }
+
+        @Override
+        public void write(byte[] pcm, int length) {
+            line.write(pcm, 0, length);
+        }
+
+        @Override
+        public void close() {
+            line.drain();
+            line.close();
+        }
+    }
+}
@@ -1,22 +1,32 @@
 package com.fbo.audio;
 
 import com.fbo.graphics.AssetManager;
+import com.fbo.perf.HitchAnalyzer;
 import com.fbo.util.ResourceUtils;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+// One per game session: players and interstitial state are the session's own, the decoded Media behind them
+// is shared by every session in the JVM. With the software mixer up, WAV effects and the interstitial's audio
+// play through it from decoded clips; MP3s (music, death) stay on MediaPlayer.
 public class SoundManager {
-    private static final SoundManager INSTANCE = new SoundManager();
-    private SoundManager(){}
-    public static SoundManager get(){ return INSTANCE; }
+    private static final Map<String, Media> MEDIA = new ConcurrentHashMap<>();
+    private static final Map<String, PcmClip> CLIPS = new ConcurrentHashMap<>();
+
+    private final SoftwareMixer mixer = SoftwareMixer.get();
+    private final Map<String, PcmClip> sfxClips = new HashMap<>();
+    private PcmClip interstitialClip;
+    private long interstitialVoice;
 
     private MediaPlayer musicPlayer;
-    private MediaPlayer interstitialVideoPlayer;
-    private MediaPlayer interstitialAudioPlayer;
+    private Media interstitialAudio;
+    private InterstitialPipeline activeInterstitial;
 
     private final Map<String, Media> sfxMedia = new HashMap<>();
     private final Map<String, String> sfxFiles = Map.of(
@@ -36,8 +46,17 @@ public class SoundManager {
             }
         } catch (Exception ignored) {}
 
+        // the pipeline times the interstitial by its video, so the clip is only used when there is one
+        if (mixer != null && assets.interstitialVideo != null) interstitialClip = loadClip("/media/gaster.wav");
+        if (interstitialClip == null) interstitialAudio = loadMedia("/media/gaster.wav");
+
         for (var e : sfxFiles.entrySet()) {
             try {
+                PcmClip clip = mixer != null && e.getValue().endsWith(".wav") ? loadClip(e.getValue()) : null;
+                if (clip != null) {
+                    sfxClips.put(e.getKey(), clip);
+                    continue;
+                }
                 Media m = loadMedia(e.getValue());
                 if (m != null) sfxMedia.put(e.getKey(), m);
             } catch (Exception ex) {
@@ -50,10 +69,24 @@ public class SoundManager {
     public void pauseMusic(){ if (musicPlayer != null) musicPlayer.pause(); }
     public void resumeMusic(){ if (musicPlayer != null) musicPlayer.play(); }
 
+    public void release() {
+        stopInterstitialClip();
+        if (musicPlayer != null) {
+            musicPlayer.dispose();
+            musicPlayer = null;
+        }
+    }
+
     public void playSfx(String name){
+        PcmClip clip = sfxClips.get(name);
+        if (clip != null) {
+            mixer.play(clip, 1.0, SoftwareMixer.SFX);
+            return;
+        }
         Media media = sfxMedia.get(name);
         if (media == null) return;
 
+        long t = HitchAnalyzer.begin();
         try {
             MediaPlayer p = new MediaPlayer(media);
             p.setVolume(1.0);
@@ -62,61 +95,83 @@ public class SoundManager {
             p.play();
         } catch (Exception e) {
             System.err.println("SFX playback error for '" + name + "': " + e.getMessage());
+        } finally {
+            HitchAnalyzer.end(HitchAnalyzer.MEDIA, "sfx " + name, t);
         }
     }
 
     public void playDeath() { playSfx("death"); }
 
-    public void startInterstitial(Media video, Media audio, Runnable onEnd){
+    public Media getInterstitialAudio() { return interstitialAudio; }
+
+    public void startInterstitial(InterstitialPipeline pipeline, Runnable onStarted, Runnable onEnd){
         pauseMusic();
 
-        if (interstitialVideoPlayer != null){ interstitialVideoPlayer.stop(); interstitialVideoPlayer.dispose(); }
-        if (interstitialAudioPlayer != null){ interstitialAudioPlayer.stop(); interstitialAudioPlayer.dispose(); }
-        if (video != null) interstitialVideoPlayer = new MediaPlayer(video);
-        if (audio != null) interstitialAudioPlayer = new MediaPlayer(audio);
-
-        if (interstitialVideoPlayer != null) {
-            interstitialVideoPlayer.setOnReady(() -> {
-                if (interstitialAudioPlayer != null) interstitialAudioPlayer.play();
-                interstitialVideoPlayer.play();
-            });
-
-            interstitialVideoPlayer.setOnEndOfMedia(() -> {
-                endInterstitial();
-                if (onEnd != null) onEnd.run();
-            });
-
-            interstitialVideoPlayer.setOnError(() -> {
-                System.err.println("Video playback error: " + interstitialVideoPlayer.getError());
-                endInterstitial();
-                if (onEnd != null) onEnd.run();
-            });
-        } else {
-            if (interstitialAudioPlayer != null) {
-                interstitialAudioPlayer.setOnEndOfMedia(() -> {
-                    endInterstitial();
-                    if (onEnd != null) onEnd.run();
-                });
-                interstitialAudioPlayer.setOnError(() -> {
-                    System.err.println("Audio playback error: " + interstitialAudioPlayer.getError());
-                });
-                interstitialAudioPlayer.play();
-            } else {
-                if (onEnd != null) onEnd.run();
-                resumeMusic();
-            }
+        if (activeInterstitial != null && activeInterstitial != pipeline) activeInterstitial.release();
+        activeInterstitial = pipeline;
+
+        Runnable started = onStarted;
+        if (interstitialClip != null) {
+            started = () -> {
+                stopInterstitialClip();
+                interstitialVoice = mixer.play(interstitialClip, 1.0, SoftwareMixer.INTERSTITIAL);
+                mixer.duck(true);
+                if (onStarted != null) onStarted.run();
+            };
         }
+
+        pipeline.start(started, () -> {
+            activeInterstitial = null;
+            stopInterstitialClip();
+            resumeMusic();
+            if (onEnd != null) onEnd.run();
+        });
     }
 
     public void endInterstitial(){
         try {
-            if (interstitialVideoPlayer != null){ interstitialVideoPlayer.stop(); interstitialVideoPlayer.dispose(); interstitialVideoPlayer = null; }
-            if (interstitialAudioPlayer != null){ interstitialAudioPlayer.stop(); interstitialAudioPlayer.dispose(); interstitialAudioPlayer = null; }
+            if (activeInterstitial != null){ activeInterstitial.release(); activeInterstitial = null; }
         } catch (Exception ignored){}
+        stopInterstitialClip();
         resumeMusic();
     }
 
+    private void stopInterstitialClip() {
+        if (interstitialVoice == 0) return;
+        mixer.stop(interstitialVoice);
+        mixer.duck(false);
+        interstitialVoice = 0;
+    }
+
+    private PcmClip loadClip(String resource) {
+        PcmClip cached = CLIPS.get(resource);
+        if (cached != null) return cached;
+        long t = HitchAnalyzer.begin();
+        PcmClip clip = null;
+        try (InputStream in = ResourceUtils.openResource(resource)) {
+            if (in != null) clip = PcmClip.decode(resource, in);
+            else System.err.println("Resource not found: " + resource);
+        } catch (Exception e) {
+            System.err.println("Clip not loadable: " + resource + " -> " + e.getMessage());
+        }
+        HitchAnalyzer.end(HitchAnalyzer.DECODE, "loadClip " + resource, t);
+        if (clip == null) return null;
+        PcmClip raced = CLIPS.putIfAbsent(resource, clip);
+        return raced != null ? raced : clip;
+    }
+
     public Media loadMedia(String resource) {
+        Media cached = MEDIA.get(resource);
+        if (cached != null) return cached;
+        long t = HitchAnalyzer.begin();
+        Media m = decodeMedia(resource);
+        HitchAnalyzer.end(HitchAnalyzer.MEDIA, "loadMedia " + resource, t);
+        if (m == null) return null;
+        Media raced = MEDIA.putIfAbsent(resource, m);
+        return raced != null ? raced : m;
+    }
+
+    private Media decodeMedia(String resource) {
         try {
             Path tmp = ResourceUtils.copyResourceToTemp(resource, guessSuffix(resource));
             if (tmp == null) {
@@ -0,0 +1,245 @@
+package com.fbo.balance;
+
+import com.fbo.level.LevelGenerator;
+import com.fbo.level.ReachabilityTable;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Monte Carlo balancing over the headless simulation.
+// java -m com.fbo.flappybirdfx/com.fbo.balance.BalanceTool --games 1000000 [--threads N] [--bots novice,expert]
+//      [--difficulty 1.0] [--max-score 200] [--seed daily|N] [--no-sensitivity] [--sensitivity-step 0.1]
+public final class BalanceTool {
+    private static final int BATCH = 2048;
+    private static final int HAZARD_ROWS = 40;
+    private static final double MAX_SECONDS = 900;
+
+    private int games = 1_000_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Bot[] bots = Bot.ALL;
+    private int maxScore = 200;
+    private boolean sensitivity = true;
+    private double step = 0.1;
+    private Long fixedSeed = null;
+    private final Tuning base = new Tuning();
+
+    public static void main(String[] args) {
+        BalanceTool tool = new BalanceTool();
+        try {
+            tool.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+        tool.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if ("--no-sensitivity".equals(a)) {
+                sensitivity = false;
+                continue;
+            }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("missing value for " + a);
+            String v = args[++i];
+            switch (a) {
+                case "--games": games = Integer.parseInt(v); break;
+                case "--threads": threads = Integer.parseInt(v); break;
+                case "--max-score": maxScore = Integer.parseInt(v); break;
+                case "--difficulty": base.userMultiplier = Double.parseDouble(v); break;
+                case "--sensitivity-step": step = Double.parseDouble(v); break;
+                case "--seed": fixedSeed = "daily".equalsIgnoreCase(v) ? LevelGenerator.dailySeed() : Long.parseLong(v); break;
+                case "--bots": {
+                    String[] names = v.split(",");
+                    bots = new Bot[names.length];
+                    for (int b = 0; b < names.length; b++) bots[b] = Bot.byName(names[b].trim());
+                    break;
+                }
+                default: throw new IllegalArgumentException("unknown option: " + a);
+            }
+        }
+    }
+
+    private void run() {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long t0 = System.nanoTime();
+            ReachabilityTable.get();
+
+            Stats[] perBot = simulate(pool, base, games);
+            long t1 = System.nanoTime();
+            long ticks = 0;
+            for (Stats s : perBot) ticks += s.ticks;
+            System.out.printf(Locale.ROOT, "%,d games on %d threads in %.2f s (%.1f M ticks/s)%n%n",
+                    games, threads, (t1 - t0) / 1e9, ticks / ((t1 - t0) / 1e9) / 1e6);
+
+            for (Stats s : perBot) printDistribution(s);
+            printHazards(perBot);
+
+            if (sensitivity) printSensitivity(pool, adaptive(perBot));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Stats[] simulate(ForkJoinPool pool, Tuning tuning, int gameCount) {
+        int batches = (gameCount + BATCH - 1) / BATCH;
+        long masterSeed = fixedSeed != null ? fixedSeed : 0x5EEDL;
+        try {
+            return pool.submit(() -> IntStream.range(0, batches).parallel()
+                    .mapToObj(b -> runBatch(tuning, b, Math.min(BATCH, gameCount - b * BATCH), masterSeed))
+                    .reduce(BalanceTool::mergeAll)
+                    .orElseGet(this::emptyStats)).get();
+        } catch (Exception e) {
+            throw new IllegalStateException("simulation failed", e);
+        }
+    }
+
+    private Stats[] runBatch(Tuning tuning, int batch, int count, long masterSeed) {
+        HeadlessGame game = new HeadlessGame();
+        Stats[] stats = emptyStats();
+        SplittableRandom rand = new SplittableRandom(masterSeed * 0x9E3779B97F4A7C15L + batch);
+        for (int i = 0; i < count; i++) {
+            int b = (batch * BATCH + i) % bots.length;
+            long levelSeed = fixedSeed != null ? fixedSeed : rand.nextLong();
+            int score = game.run(tuning, bots[b], rand, levelSeed, maxScore, MAX_SECONDS);
+            stats[b].record(score, game.passed, score >= maxScore, Math.round(game.playTime / HeadlessGame.TICK));
+        }
+        return stats;
+    }
+
+    private Stats[] emptyStats() {
+        Stats[] s = new Stats[bots.length];
+        for (int i = 0; i < s.length; i++) s[i] = new Stats(bots[i].name, maxScore);
+        return s;
+    }
+
+    private static Stats[] mergeAll(Stats[] a, Stats[] b) {
+        for (int i = 0; i < a.length; i++) a[i].add(b[i]);
+        return a;
+    }
+
+    private void printDistribution(Stats s) {
+        System.out.printf(Locale.ROOT, "%s: %,d games, mean %.2f, survived to cap %.2f%%%n",
+                s.name, s.games, s.mean(), 100.0 * s.capped / Math.max(1, s.games));
+        System.out.printf(Locale.ROOT, "  p10 %d  p25 %d  p50 %d  p75 %d  p90 %d  p99 %d  max %d%n",
+                s.percentile(0.10), s.percentile(0.25), s.percentile(0.50),
+                s.percentile(0.75), s.percentile(0.90), s.percentile(0.99), s.max());
+        int[] edges = {0, 1, 2, 5, 10, 20, 50, 100, Integer.MAX_VALUE};
+        StringBuilder sb = new StringBuilder("  ");
+        for (int e = 0; e + 1 < edges.length; e++) {
+            long n = s.countBetween(edges[e], edges[e + 1]);
+            String label = edges[e + 1] == Integer.MAX_VALUE ? edges[e] + "+" : edges[e] + "-" + (edges[e + 1] - 1);
+            sb.append(String.format(Locale.ROOT, "%s:%.1f%%  ", label, 100.0 * n / Math.max(1, s.games)));
+        }
+        System.out.println(sb);
+        System.out.println();
+    }
+
+    // hazard at pipe i: of the games that reached pipe i, the fraction that died on it
+    private void printHazards(Stats[] perBot) {
+        StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "%6s", "pipe"));
+        for (Stats s : perBot) header.append(String.format(Locale.ROOT, " %10s", s.name));
+        System.out.println("hazard rate per pipe index");
+        System.out.println(header);
+        int rows = Math.min(HAZARD_ROWS, maxScore);
+        for (int i = 0; i < rows; i++) {
+            StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "%6d", i));
+            for (Stats s : perBot) {
+                long reached = s.reached(i);
+                row.append(reached == 0 ? String.format(Locale.ROOT, " %10s", "-")
+                        : String.format(Locale.ROOT, " %9.2f%%", 100.0 * s.deaths[i] / reached));
+            }
+            System.out.println(row);
+        }
+        System.out.println();
+    }
+
+    // the scripted floor never reacts to the level, so it is left out of what tuning changes are judged on
+    private Stats adaptive(Stats[] perBot) {
+        Stats m = new Stats("adaptive", maxScore);
+        for (int b = 0; b < bots.length; b++) {
+            if (!bots[b].scripted()) m.add(perBot[b]);
+        }
+        return m;
+    }
+
+    private void printSensitivity(ForkJoinPool pool, Stats baseline) {
+        int n = Math.max(BATCH, games / 10);
+        System.out.printf(Locale.ROOT, "sensitivity (+/-%.0f%%, %,d games each, baseline mean %.2f)%n", step * 100, n, baseline.mean());
+        System.out.printf(Locale.ROOT, "%14s %10s %10s %11s %10s%n", "parameter", "mean -", "mean +", "elasticity", "p50 -/+");
+        for (String p : Tuning.PARAMETERS) {
+            Stats down = adaptive(simulate(pool, base.scaled(p, 1 - step), n));
+            Stats up = adaptive(simulate(pool, base.scaled(p, 1 + step), n));
+            double elasticity = (up.mean() - down.mean()) / (2 * step * Math.max(1e-9, baseline.mean()));
+            System.out.printf(Locale.ROOT, "%14s %10.2f %10.2f %11.3f %5d/%d%n",
+                    p, down.mean(), up.mean(), elasticity, down.percentile(0.5), up.percentile(0.5));
+        }
+    }
+
+    static final class Stats {
+        final String name;
+        final long[] scores;
+        // deaths[i]: games that died while pipe i was the next one to clear
+        final long[] deaths;
+        long games, capped, ticks, scoreSum;
+
+        Stats(String name, int maxScore) {
+            this.name = name;
+            this.scores = new long[maxScore + 1];
+            this.deaths = new long[maxScore + 8];
+        }
+
+        void record(int score, int passed, boolean survived, long gameTicks) {
+            scores[Math.min(score, scores.length - 1)]++;
+            games++;
+            ticks += gameTicks;
+            scoreSum += score;
+            if (survived) capped++;
+            else deaths[Math.min(passed, deaths.length - 1)]++;
+        }
+
+        void add(Stats o) {
+            for (int i = 0; i < scores.length; i++) scores[i] += o.scores[i];
+            for (int i = 0; i < deaths.length; i++) deaths[i] += o.deaths[i];
+            games += o.games;
+            capped += o.capped;
+            ticks += o.ticks;
+            scoreSum += o.scoreSum;
+        }
+
+        long reached(int pipe) {
+            long died = 0;
+            for (int i = 0; i < pipe; i++) died += deaths[i];
+            return games - died;
+        }
+
+        double mean() { return games == 0 ? 0 : (double) scoreSum / games; }
+
+        int percentile(double q) {
+            long target = (long) Math.ceil(q * games);
+            long acc = 0;
+            for (int i = 0; i < scores.length; i++) {
+                acc += scores[i];
+                if (acc >= target) return i;
+            }
+            return scores.length - 1;
+        }
+
+        int max() {
+            for (int i = scores.length - 1; i >= 0; i--) {
+                if (scores[i] > 0) return i;
+            }
+            return 0;
+        }
+
+        long countBetween(int from, int to) {
+            long n = 0;
+            for (int i = from; i < Math.min(to, scores.length); i++) n += scores[i];
+            return n;
+        }
+    }
+}
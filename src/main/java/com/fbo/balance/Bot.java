@@ -0,0 +1,98 @@
+package com.fbo.balance;
+
+import com.fbo.config.GameConfig;
+
+import java.util.SplittableRandom;
+
+// A simulated player. Bots aim for the next gap and act after a reaction delay; a scripted bot ignores the
+// world and flaps on a fixed rhythm, which is useful as a floor for the survival curve.
+public final class Bot {
+    public static final Bot NOVICE = new Bot("novice", 20, 30, 12, 0.004, 0);
+    public static final Bot CASUAL = new Bot("casual", 14, 18, 8, 0.0015, 0);
+    public static final Bot SKILLED = new Bot("skilled", 9, 9, 5, 0.0004, 0);
+    public static final Bot EXPERT = new Bot("expert", 5, 4, 3, 0.00005, 0);
+    public static final Bot SCRIPTED = new Bot("scripted", 0, 0, 0, 0, holdRhythm());
+
+    public static final Bot[] ALL = {NOVICE, CASUAL, SKILLED, EXPERT, SCRIPTED};
+
+    public final String name;
+    // ticks between deciding to flap and the flap happening
+    final int reactionTicks;
+    // standard deviation of where in the gap the bot aims, resampled per obstacle
+    final double aimNoise;
+    final double deadband;
+    // chance per tick of zoning out for a short while
+    final double lapseChance;
+    final int rhythmTicks;
+
+    private Bot(String name, int reactionTicks, double aimNoise, double deadband, double lapseChance, int rhythmTicks) {
+        this.name = name;
+        this.reactionTicks = reactionTicks;
+        this.aimNoise = aimNoise;
+        this.deadband = deadband;
+        this.lapseChance = lapseChance;
+        this.rhythmTicks = rhythmTicks;
+    }
+
+    // ticks between flaps that bring the bird back to the height it flapped at. With vy += g*dt; y += vy*dt
+    // the bird is n*v0*dt + g*dt*dt*n*(n+1)/2 below that height n ticks after a flap, zero at n = -2*v0/(g*dt) - 1
+    private static int holdRhythm() {
+        double dt = 1.0 / GameConfig.SIM_TICK_HZ;
+        return (int) Math.round(-2 * GameConfig.FLAP_STRENGTH / (GameConfig.GRAVITY * dt) - 1);
+    }
+
+    boolean scripted() { return rhythmTicks > 0; }
+
+    public static Bot byName(String name) {
+        for (Bot b : ALL) {
+            if (b.name.equalsIgnoreCase(name)) return b;
+        }
+        throw new IllegalArgumentException("unknown bot: " + name);
+    }
+
+    // per game decision state, reused across games on one worker
+    static final class Mind {
+        long pending;
+        int lapseTicks;
+        int aimObstacle = -1;
+        double aimOffset;
+        long tick;
+
+        void reset() {
+            pending = 0;
+            lapseTicks = 0;
+            aimObstacle = -1;
+            aimOffset = 0;
+            tick = 0;
+        }
+    }
+
+    // returns whether the flap scheduled for this tick fires
+    boolean tick(Mind m, SplittableRandom rand, double y, double vy, double size, int obstacle, double targetY) {
+        m.tick++;
+        // first flap on the first tick, so it holds the height it starts at
+        if (rhythmTicks > 0) return (m.tick - 1) % rhythmTicks == 0;
+
+        boolean fire = (m.pending & 1L) != 0;
+        m.pending >>>= 1;
+
+        if (m.lapseTicks > 0) {
+            m.lapseTicks--;
+        } else if (lapseChance > 0 && rand.nextDouble() < lapseChance) {
+            m.lapseTicks = 20 + rand.nextInt(40);
+        } else {
+            if (obstacle != m.aimObstacle) {
+                m.aimObstacle = obstacle;
+                m.aimOffset = rand.nextGaussian() * aimNoise;
+            }
+            // where the bird will be once a flap decided now lands
+            double lead = (reactionTicks + 6) / 120.0;
+            double predicted = y + size / 2.0 + vy * lead;
+            long window = reactionTicks >= 63 ? -1L : (1L << (reactionTicks + 1)) - 1;
+            if (predicted > targetY + m.aimOffset + deadband && vy > -60 && (m.pending & window) == 0) {
+                m.pending |= 1L << Math.min(62, reactionTicks);
+            }
+        }
+        return fire;
+    }
+}
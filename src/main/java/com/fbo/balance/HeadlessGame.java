@@ -0,0 +1,103 @@
+package com.fbo.balance;
+
+import com.fbo.ObstacleRing;
+import com.fbo.config.GameConfig;
+import com.fbo.level.Course;
+import com.fbo.level.LevelChunk;
+import com.fbo.level.LevelGenerator;
+
+import java.util.SplittableRandom;
+
+// FlappyBirdFX.update without the FX side, at the simulation thread's fixed tick, on the same Course with the
+// tuning's gaps and speeds. One instance per worker thread; run() resets everything so games reuse the same arrays.
+final class HeadlessGame implements Course.Level {
+    static final double TICK = 1.0 / GameConfig.SIM_TICK_HZ;
+    static final double SCREEN_W = 1280, SCREEN_H = 900;
+    private static final double BIRD_X = 200;
+    // log1p of the play time after each tick, shared by every worker
+    private static final double[] LOG_TIME = new double[15 * 60 * GameConfig.SIM_TICK_HZ];
+
+    static {
+        double t = 0;
+        for (int i = 0; i < LOG_TIME.length; i++) {
+            t += TICK;
+            LOG_TIME[i] = Math.log1p(t);
+        }
+    }
+
+    private final ObstacleRing pipes = new ObstacleRing(GameConfig.OBSTACLE_CAPACITY);
+    private final Course course = new Course(pipes);
+    private final Bot.Mind mind = new Bot.Mind();
+    private LevelChunk chunk;
+
+    private Tuning tuning;
+    private long levelSeed;
+
+    // obstacles whose right edge is behind the bird; this is what hazard rates are indexed by
+    int passed;
+    int score;
+    double playTime;
+
+    // plays one game and returns the score; maxScore ends the game early as a survivor
+    int run(Tuning t, Bot bot, SplittableRandom rand, long levelSeed, int maxScore, double maxSeconds) {
+        this.tuning = t;
+        this.levelSeed = levelSeed;
+        chunk = null;
+        passed = 0;
+        score = 0;
+        playTime = 0;
+        mind.reset();
+
+        course.start(this, t.pipeSpacing, t.baseSpeed, SCREEN_H);
+
+        double y = 300, vy = 0;
+        double size = GameConfig.BIRD_SIZE;
+        int tick = 0;
+        while (score < maxScore && playTime < maxSeconds) {
+            int target = firstAhead();
+            double targetY = target >= 0 ? pipes.gapCenterY(target) : SCREEN_H / 2.0;
+            if (bot.tick(mind, rand, y, vy, size, passed, targetY)) vy = t.flapStrength;
+
+            playTime += TICK;
+            vy += t.gravity * TICK;
+            y += vy * TICK;
+
+            double logTime = tick < LOG_TIME.length ? LOG_TIME[tick] : Math.log1p(playTime);
+            tick++;
+            if (course.advance(t.baseSpeed * t.difficultyFactorLog(logTime, score), TICK, BIRD_X, y, size)) return score;
+            while (course.recycle(SCREEN_W, SCREEN_H)) score++;
+            if (Course.outOfBounds(y, size, SCREEN_H)) return score;
+        }
+        return score;
+    }
+
+    private int firstAhead() {
+        int n = pipes.size();
+        int count = 0;
+        int found = -1;
+        for (int i = 0; i < n; i++) {
+            if (pipes.x(i) + pipes.width(i) < BIRD_X) {
+                count++;
+            } else if (found < 0) {
+                found = i;
+            }
+        }
+        // obstacles behind the bird that have not been recycled yet still count as passed
+        passed = score + count;
+        return found;
+    }
+
+    @Override
+    public double position(int k) {
+        int index = k / LevelChunk.SIZE;
+        if (chunk == null || chunk.index != index) chunk = LevelGenerator.generateAfter(levelSeed, index, chunk);
+        return chunk.position(k % LevelChunk.SIZE);
+    }
+
+    @Override
+    public int gap(int k) {
+        return k < Course.INITIAL_OBSTACLES
+                ? (int) tuning.initialGap
+                : tuning.pipeGap(LevelGenerator.estimatePlayTime(k), k - Course.INITIAL_OBSTACLES);
+    }
+}
@@ -0,0 +1,84 @@
+package com.fbo.balance;
+
+import com.fbo.config.GameConfig;
+
+// The balancing constants as values, so a run can perturb one of them. Defaults come from GameConfig and the
+// formulas match GameConfig.getDifficultyFactor/getPipeGap.
+public final class Tuning {
+    public static final String[] PARAMETERS = {
+            "gravity", "flapStrength", "baseSpeed", "pipeSpacing", "initialGap",
+            "minGap", "gapScoreSlope", "gapTimeSlope", "timeDivisor", "scoreSlope"
+    };
+
+    public double gravity = GameConfig.GRAVITY;
+    public double flapStrength = GameConfig.FLAP_STRENGTH;
+    public double baseSpeed = GameConfig.BASE_PIPE_SPEED;
+    public double pipeSpacing = GameConfig.PIPE_SPACING;
+    public double initialGap = GameConfig.INITIAL_PIPE_GAP;
+    public double minGap = GameConfig.MIN_PIPE_GAP;
+    public double gapScoreSlope = GameConfig.GAP_SCORE_SLOPE;
+    public double gapTimeSlope = GameConfig.GAP_TIME_SLOPE;
+    public double timeDivisor = GameConfig.DIFFICULTY_TIME_DIVISOR;
+    public double scoreSlope = GameConfig.DIFFICULTY_SCORE_SLOPE;
+    public double userMultiplier = 1.0;
+
+    public Tuning copy() {
+        Tuning t = new Tuning();
+        for (String p : PARAMETERS) t.set(p, get(p));
+        t.userMultiplier = userMultiplier;
+        return t;
+    }
+
+    public Tuning scaled(String parameter, double factor) {
+        Tuning t = copy();
+        t.set(parameter, get(parameter) * factor);
+        return t;
+    }
+
+    public double get(String parameter) {
+        switch (parameter) {
+            case "gravity": return gravity;
+            case "flapStrength": return flapStrength;
+            case "baseSpeed": return baseSpeed;
+            case "pipeSpacing": return pipeSpacing;
+            case "initialGap": return initialGap;
+            case "minGap": return minGap;
+            case "gapScoreSlope": return gapScoreSlope;
+            case "gapTimeSlope": return gapTimeSlope;
+            case "timeDivisor": return timeDivisor;
+            case "scoreSlope": return scoreSlope;
+            default: throw new IllegalArgumentException("unknown parameter: " + parameter);
+        }
+    }
+
+    public void set(String parameter, double value) {
+        switch (parameter) {
+            case "gravity": gravity = value; break;
+            case "flapStrength": flapStrength = value; break;
+            case "baseSpeed": baseSpeed = value; break;
+            case "pipeSpacing": pipeSpacing = value; break;
+            case "initialGap": initialGap = value; break;
+            case "minGap": minGap = value; break;
+            case "gapScoreSlope": gapScoreSlope = value; break;
+            case "gapTimeSlope": gapTimeSlope = value; break;
+            case "timeDivisor": timeDivisor = value; break;
+            case "scoreSlope": scoreSlope = value; break;
+            default: throw new IllegalArgumentException("unknown parameter: " + parameter);
+        }
+    }
+
+    public double difficultyFactor(double playTimeSeconds, int score) {
+        return difficultyFactorLog(Math.log1p(playTimeSeconds), score);
+    }
+
+    // same curve from a precomputed log1p(playTime), which dominates the cost of a headless tick
+    public double difficultyFactorLog(double log1pPlayTime, int score) {
+        double timeFactor = 1.0 + log1pPlayTime / timeDivisor;
+        double scoreFactor = 1.0 + score * scoreSlope;
+        return Math.max(GameConfig.DIFFICULTY_FLOOR, userMultiplier * timeFactor * scoreFactor);
+    }
+
+    public int pipeGap(double playTimeSeconds, int score) {
+        return (int) Math.max(minGap, initialGap - (int) (score * gapScoreSlope + Math.log1p(playTimeSeconds) * gapTimeSlope));
+    }
+}
@@ -0,0 +1,135 @@
+package com.fbo.bench;
+
+import com.fbo.util.Percentiles;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.*;
+
+// Frame times, allocation rate and GC pauses over one scripted scenario. Frames are recorded on the FX
+// thread, collections arrive on the JMX notification thread. Allocation is what the heap grew by plus what
+// the collections in between freed.
+public final class FrameRecorder {
+    private final String name;
+    private long[] intervals = new long[1 << 14];
+    private long[] work = new long[1 << 14];
+    private int frames;
+    private long startNanos, heapStart;
+    private long issued, elided, flattened;
+
+    private final List<Double> pauses = new ArrayList<>();
+    private long collected;
+    private final NotificationListener listener = this::onGc;
+
+    public FrameRecorder(String name) {
+        this.name = name;
+    }
+
+    public void start() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter e) e.addNotificationListener(listener, null, null);
+        }
+        heapStart = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        startNanos = System.nanoTime();
+    }
+
+    // interval: since the previous frame started, what the player sees; work: update and render on the FX thread
+    public void frame(long intervalNanos, long workNanos) {
+        if (frames == intervals.length) {
+            intervals = Arrays.copyOf(intervals, frames * 2);
+            work = Arrays.copyOf(work, frames * 2);
+        }
+        intervals[frames] = intervalNanos;
+        work[frames] = workNanos;
+        frames++;
+    }
+
+    // what the frame's replay did to the GraphicsContext (see TrackedGraphics)
+    public void draws(int issuedCalls, int elidedCalls, int flattenedPairs) {
+        issued += issuedCalls;
+        elided += elidedCalls;
+        flattened += flattenedPairs;
+    }
+
+    private void onGc(Notification n, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) return;
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+        long freed = 0;
+        Map<String, MemoryUsage> before = info.getGcInfo().getMemoryUsageBeforeGc();
+        for (Map.Entry<String, MemoryUsage> after : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            MemoryUsage b = before.get(after.getKey());
+            if (b != null) freed += Math.max(0, b.getUsed() - after.getValue().getUsed());
+        }
+        synchronized (this) {
+            collected += freed;
+            // concurrent cycles run beside the application; only the others stop it
+            if (!info.getGcName().contains("Concurrent")) pauses.add((double) info.getGcInfo().getDuration());
+        }
+    }
+
+    public Result finish() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long heapEnd = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter e) {
+                try {
+                    e.removeNotificationListener(listener);
+                } catch (Exception ignored) {}
+            }
+        }
+
+        long[] iv = Arrays.copyOf(intervals, frames);
+        long[] wk = Arrays.copyOf(work, frames);
+        Arrays.sort(iv);
+        Arrays.sort(wk);
+
+        Result r = new Result(name, frames, seconds);
+        r.metrics.put("frame_p50_ms", percentile(iv, 50));
+        r.metrics.put("frame_p99_ms", percentile(iv, 99));
+        r.metrics.put("frame_p999_ms", percentile(iv, 99.9));
+        r.metrics.put("frame_max_ms", frames > 0 ? iv[frames - 1] / 1e6 : 0);
+        r.metrics.put("work_p50_ms", percentile(wk, 50));
+        r.metrics.put("work_p99_ms", percentile(wk, 99));
+        r.metrics.put("calls_issued", issued / (double) Math.max(1, frames));
+        r.metrics.put("calls_elided", elided / (double) Math.max(1, frames));
+        r.metrics.put("saves_flattened", flattened / (double) Math.max(1, frames));
+        synchronized (this) {
+            r.metrics.put("alloc_mb_per_s", (heapEnd - heapStart + collected) / 1048576.0 / seconds);
+            r.metrics.put("gc_pauses", (double) pauses.size());
+            r.metrics.put("gc_pause_total_ms", pauses.stream().mapToDouble(Double::doubleValue).sum());
+            r.metrics.put("gc_pause_max_ms", pauses.stream().mapToDouble(Double::doubleValue).max().orElse(0));
+        }
+        return r;
+    }
+
+    // in milliseconds
+    private static double percentile(long[] sorted, double p) {
+        return Percentiles.of(sorted, p) / 1e6;
+    }
+
+    public static final class Result {
+        public final String name;
+        public final int frames;
+        public final double seconds;
+        public final Map<String, Double> metrics = new LinkedHashMap<>();
+
+        Result(String name, int frames, double seconds) {
+            this.name = name;
+            this.frames = frames;
+            this.seconds = seconds;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%s: %d frames in %.1f s", name, frames, seconds));
+            metrics.forEach((k, v) -> sb.append(String.format(Locale.ROOT, "%n  %-18s %10.2f", k, v)));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.fbo.bench;
+
+import com.fbo.FlappyBirdFX;
+import javafx.application.Application;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+// Release gate: plays scripted sessions through the real game (see ScriptedSession) and compares frame times,
+// allocation rate and GC pauses with a stored baseline. Exits 1 when a gated metric is worse than the baseline
+// by more than the tolerance, 2 when there is no baseline to compare with. Pulses run unthrottled so frame
+// times are the game's cost rather than the display's refresh rate. Needs a display (xvfb-run on build hosts).
+// mvn javafx:run -Dmain.class=com.fbo.bench.GameplayBenchmark -Djavafx.args="--baseline gameplay-baseline.properties"
+// options: --pipes 500 --interstitial-pipes 50 --baseline FILE --tolerance 10 (percent) --update-baseline
+public final class GameplayBenchmark {
+    private static final Set<String> GATED = Set.of("frame_p50_ms", "frame_p99_ms", "frame_p999_ms", "work_p99_ms",
+            "alloc_mb_per_s", "gc_pause_max_ms");
+    // added to every limit, so sub-millisecond metrics don't fail on scheduler noise
+    private static final double SLACK = 0.5;
+
+    public static void main(String[] args) throws Exception {
+        int pipes = 500, interstitialPipes = 50;
+        double tolerance = 10;
+        Path baseline = Paths.get("gameplay-baseline.properties");
+        boolean update = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--pipes" -> pipes = Integer.parseInt(args[++i]);
+                case "--interstitial-pipes" -> interstitialPipes = Integer.parseInt(args[++i]);
+                case "--baseline" -> baseline = Paths.get(args[++i]);
+                case "--tolerance" -> tolerance = Double.parseDouble(args[++i]);
+                case "--update-baseline" -> update = true;
+                default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+
+        // a fresh leaderboard and ghost store: every run races the same ghosts and the player's files stay untouched
+        System.setProperty("user.home", Files.createTempDirectory("flappybirdfx-bench").toString());
+        System.setProperty("flappybirdfx.seed", "1");
+        System.setProperty("flappybirdfx.benchmark", "off:" + pipes + ",on:" + interstitialPipes);
+        System.setProperty("javafx.animation.fullspeed", "true");
+        System.setProperty("prism.vsync", "false");
+        Application.launch(FlappyBirdFX.class);
+
+        List<FrameRecorder.Result> results = ScriptedSession.results();
+        if (results.isEmpty()) {
+            System.err.println("The scripted session did not finish");
+            System.exit(2);
+        }
+
+        if (update) {
+            save(baseline, results);
+            System.out.println("Wrote baseline " + baseline);
+            System.exit(0);
+        }
+        if (!Files.exists(baseline)) {
+            System.err.println("No baseline at " + baseline + "; run with --update-baseline on a known-good build");
+            System.exit(2);
+        }
+        Properties base = new Properties();
+        try (InputStream in = Files.newInputStream(baseline)) {
+            base.load(in);
+        }
+
+        int regressions = 0;
+        System.out.printf("%-20s %-18s %10s %10s %8s%n", "scenario", "metric", "baseline", "current", "change");
+        for (FrameRecorder.Result r : results) {
+            for (String metric : r.metrics.keySet()) {
+                double now = r.metrics.get(metric);
+                String stored = base.getProperty(r.name + "." + metric);
+                if (stored == null) continue;
+                double was = Double.parseDouble(stored);
+                boolean regressed = GATED.contains(metric) && now > was * (1 + tolerance / 100) + SLACK;
+                if (regressed) regressions++;
+                System.out.printf(Locale.ROOT, "%-20s %-18s %10.2f %10.2f %+7.1f%%%s%n", r.name, metric, was, now,
+                        was > 0 ? 100 * (now / was - 1) : 0, regressed ? "  REGRESSED" : "");
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d regression(s) past %.0f%% tolerance%n", regressions, tolerance);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static void save(Path file, List<FrameRecorder.Result> results) throws Exception {
+        Properties p = new Properties();
+        for (FrameRecorder.Result r : results) {
+            r.metrics.forEach((k, v) -> p.setProperty(r.name + "." + k, String.format(Locale.ROOT, "%.3f", v)));
+        }
+        Path abs = file.toAbsolutePath();
+        Path tmp = abs.resolveSibling(abs.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            p.store(out, "GameplayBenchmark baseline");
+        }
+        Files.move(tmp, abs, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,148 @@
+package com.fbo.bench;
+
+import com.fbo.audio.PcmClip;
+import com.fbo.audio.SoftwareMixer;
+import com.fbo.util.Percentiles;
+import com.fbo.util.ResourceUtils;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+// The software mixer without a sound device: trigger-to-audible against a sink paced like a line, and what a
+// period of mixing costs with every voice busy. SoftwareMixerTest covers what it mixes.
+// target/app-runtime/bin/java -m com.fbo.flappybirdfx/com.fbo.bench.MixerBenchmark [triggers]
+public final class MixerBenchmark {
+    private static final int PERIOD_BYTES = SoftwareMixer.PERIOD_FRAMES * SoftwareMixer.CHANNELS * 2;
+    private static final long PERIOD_NANOS = SoftwareMixer.PERIOD_FRAMES * 1_000_000_000L / SoftwareMixer.SAMPLE_RATE;
+    // what the mixer opens its line with
+    private static final int LINE_PERIODS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int triggers = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        PcmClip coin = clip("/media/coin.wav");
+        PcmClip flap = clip("/media/flap.wav");
+        PcmClip gaster = clip("/media/gaster.wav");
+        System.out.printf(Locale.ROOT, "decoded: coin %.2f s, flap %.2f s (resampled), gaster %.2f s%n",
+                coin.seconds(), flap.seconds(), gaster.seconds());
+
+        latency(triggers);
+        cost(gaster);
+    }
+
+    // a click triggered at random points against a sink that takes periods at the device's rate and holds
+    // LINE_PERIODS of them, like the line; latency is trigger to the start of the first period carrying it
+    private static void latency(int triggers) throws Exception {
+        PcmClip click = click();
+        SoftwareMixer mixer = new SoftwareMixer();
+        PacedSink sink = new PacedSink();
+        mixer.start(sink);
+        Random random = new Random(1);
+        long[] latencies = new long[triggers];
+        Thread.sleep(50);
+        for (int i = 0; i < triggers; i++) {
+            Thread.sleep(20 + random.nextInt(20));
+            latencies[i] = sink.trigger(() -> mixer.play(click, 1.0, SoftwareMixer.SFX));
+        }
+        mixer.halt();
+        Arrays.sort(latencies);
+        System.out.printf(Locale.ROOT, "trigger to audible over %d triggers (ms): p50 %.1f  p99 %.1f  max %.1f"
+                        + "  (period %.1f, line %d periods)%n", triggers, pct(latencies, 50), pct(latencies, 99),
+                latencies[triggers - 1] / 1e6, PERIOD_NANOS / 1e6, LINE_PERIODS);
+    }
+
+    private static void cost(PcmClip clip) {
+        SoftwareMixer mixer = new SoftwareMixer();
+        byte[] period = new byte[PERIOD_BYTES];
+        int periods = 20_000;
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long t = System.nanoTime();
+            for (int i = 0; i < periods; i++) {
+                if (mixer.activeVoices() < 16) {
+                    while (mixer.activeVoices() < 16) mixer.play(clip, 0.1, SoftwareMixer.SFX);
+                }
+                mixer.render(period, SoftwareMixer.PERIOD_FRAMES);
+            }
+            best = Math.min(best, (System.nanoTime() - t) / (double) periods);
+        }
+        System.out.printf(Locale.ROOT, "mixing 16 voices: %.1f us per period, %.2f%% of real time%n",
+                best / 1e3, 100 * best / PERIOD_NANOS);
+    }
+
+    private static final class PacedSink implements SoftwareMixer.Sink {
+        private long playhead;
+        private long triggered;
+        private long heard;
+
+        // runs play at a known time and waits for the first period that carries it to start playing
+        synchronized long trigger(Runnable play) throws InterruptedException {
+            triggered = System.nanoTime();
+            heard = 0;
+            play.run();
+            while (heard == 0) wait();
+            return heard - triggered;
+        }
+
+        // like a full line: room once a period has drained
+        @Override
+        public void awaitRoom(int length) {
+            long wait = playhead - System.nanoTime() - (LINE_PERIODS - 1) * PERIOD_NANOS;
+            if (wait > 0) LockSupport.parkNanos(wait);
+        }
+
+        @Override
+        public void write(byte[] pcm, int length) {
+            long start = Math.max(System.nanoTime(), playhead);
+            playhead = start + PERIOD_NANOS;
+            synchronized (this) {
+                if (triggered != 0 && heard == 0 && !silent(pcm, length)) {
+                    heard = start;
+                    notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void close() {}
+
+        private static boolean silent(byte[] pcm, int length) {
+            for (int i = 0; i < length; i++) if (pcm[i] != 0) return false;
+            return true;
+        }
+    }
+
+    private static PcmClip clip(String resource) throws Exception {
+        try (InputStream in = ResourceUtils.openResource(resource)) {
+            PcmClip clip = in != null ? PcmClip.decode(resource, in) : null;
+            if (clip == null) throw new IllegalStateException("Could not decode " + resource);
+            return clip;
+        }
+    }
+
+    // 10 ms of DC, audible from its first sample
+    private static PcmClip click() throws Exception {
+        int frames = SoftwareMixer.SAMPLE_RATE / 100;
+        byte[] pcm = new byte[frames * SoftwareMixer.CHANNELS * 2];
+        for (int i = 0; i < pcm.length; i += 2) {
+            pcm[i] = (byte) 1000;
+            pcm[i + 1] = (byte) (1000 >> 8);
+        }
+        ByteArrayOutputStream wav = new ByteArrayOutputStream();
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm), SoftwareMixer.FORMAT, frames),
+                AudioFileFormat.Type.WAVE, wav);
+        return PcmClip.decode("click", new ByteArrayInputStream(wav.toByteArray()));
+    }
+
+    private static double pct(long[] sorted, double p) {
+        return Percentiles.of(sorted, p) / 1e6;
+    }
+}
@@ -0,0 +1,106 @@
+package com.fbo.bench;
+
+import com.fbo.graphics.ParticleRasterizer;
+import com.fbo.graphics.RenderCommandBuffer;
+import com.fbo.graphics.RenderExecutor;
+import javafx.application.Platform;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+// Compares per-particle fillOval against the software rasterizer. A canvas snapshot is taken every
+// frame so the Prism work is counted as well, not just recording.
+// mvn javafx:run -Dmain.class=com.fbo.bench.ParticleBenchmark
+public final class ParticleBenchmark {
+    private static final int W = 1280, H = 720;
+    private static final int[] COUNTS = {200, 1000, 4000, 16000};
+    private static final int WARMUP = 30, FRAMES = 120;
+
+    public static void main(String[] args) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.startup(() -> {
+            try {
+                run();
+            } catch (Exception e) {
+                System.err.println("Particle benchmark failed: " + e.getMessage());
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+    }
+
+    private static void run() {
+        Canvas canvas = new Canvas(W, H);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        WritableImage target = new WritableImage(W, H);
+
+        RenderCommandBuffer cb = new RenderCommandBuffer();
+        RenderExecutor executor = new RenderExecutor();
+        ParticleRasterizer raster = new ParticleRasterizer(ParticleRasterizer.BLEND_ALPHA);
+
+        System.out.printf("%8s %14s %14s %8s%n", "count", "ovals ms", "raster ms", "speedup");
+        for (int count : COUNTS) {
+            float[] x = new float[count], y = new float[count], alpha = new float[count];
+            int[] rgb = new int[count];
+            Color[] colors = new Color[count];
+            generate(42L, x, y, alpha, rgb, colors);
+
+            double ovals = time(() -> {
+                cb.reset();
+                cb.clearRect(0, 0, W, H);
+                for (int i = 0; i < count; i++) {
+                    cb.setGlobalAlpha(alpha[i]);
+                    cb.setFill(colors[i]);
+                    cb.fillOval(x[i] - 3, y[i] - 3, 6, 6);
+                }
+                cb.setGlobalAlpha(1.0);
+                executor.replay(cb, gc, W, H);
+                canvas.snapshot(params, target);
+            });
+
+            double software = time(() -> {
+                cb.reset();
+                cb.clearRect(0, 0, W, H);
+                raster.begin(W, H);
+                for (int i = 0; i < count; i++) {
+                    raster.add(x[i], y[i], 3, rgb[i], alpha[i]);
+                }
+                raster.finish(cb);
+                executor.replay(cb, gc, W, H);
+                canvas.snapshot(params, target);
+            });
+
+            System.out.printf("%8d %14.3f %14.3f %7.2fx%n", count, ovals, software, ovals / software);
+        }
+    }
+
+    private static double time(Runnable frame) {
+        for (int i = 0; i < WARMUP; i++) frame.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) frame.run();
+        return (System.nanoTime() - start) / 1e6 / FRAMES;
+    }
+
+    private static void generate(long seed, float[] x, float[] y, float[] alpha, int[] rgb, Color[] colors) {
+        Random rand = new Random(seed);
+        for (int i = 0; i < x.length; i++) {
+            double angle = rand.nextDouble() * Math.PI * 2.0;
+            double dist = Math.sqrt(rand.nextDouble()) * 320;
+            x[i] = (float) (W / 2.0 + Math.cos(angle) * dist);
+            y[i] = (float) (H / 2.0 + Math.sin(angle) * dist);
+            alpha[i] = (float) (0.2 + rand.nextDouble() * 0.8);
+            int r = rand.nextInt(256), g = rand.nextInt(128), b = rand.nextInt(64);
+            rgb[i] = (r << 16) | (g << 8) | b;
+            colors[i] = Color.rgb(r, g, b);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.fbo.bench;
+
+import com.fbo.Bird;
+import com.fbo.ObstacleRing;
+import com.fbo.config.GameConfig;
+import com.fbo.sim.BirdBatch;
+import com.fbo.sim.BirdKernel;
+import com.fbo.sim.ScalarBirdKernel;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Throughput of stepping many birds: Bird.update plus a collision test per object, against BirdBatch with the
+// scalar and vector kernels. BirdBatchTest checks that all three compute the same thing.
+// java -p target/classes:target/mods -m com.fbo.flappybirdfx/com.fbo.bench.PhysicsBenchmark
+public final class PhysicsBenchmark {
+    private static final double DT = 1.0 / GameConfig.SIM_TICK_HZ;
+    private static final double SCREEN_H = 1e9;
+    private static final int[] COUNTS = {1_000, 10_000, 100_000};
+    private static final int ROUNDS = 5;
+    private static final long TARGET_STEPS = 200_000_000L;
+
+    public static void main(String[] args) {
+        ObstacleRing pipes = new ObstacleRing(GameConfig.OBSTACLE_CAPACITY);
+        // one slab over the birds' x, with a gap nobody leaves, so every lane does the full test
+        pipes.spawn(180, 0, 4e9);
+
+        BirdKernel best = BirdKernel.best();
+        System.out.printf(Locale.ROOT, "kernel: %s%n", best.name());
+        System.out.printf(Locale.ROOT, "%8s %16s %16s %16s%n", "birds", "objects M/s", "scalar M/s", best.name() + " M/s");
+
+        for (int count : COUNTS) {
+            boolean[][] flaps = flapPattern(count, 64);
+            int ticks = (int) Math.max(10, TARGET_STEPS / ROUNDS / count);
+
+            Bird[] birds = new Bird[count];
+            for (int i = 0; i < count; i++) birds[i] = new Bird(GameConfig.BIRD_SIZE, null);
+            BirdBatch scalar = new BirdBatch(count, new ScalarBirdKernel());
+            BirdBatch vector = new BirdBatch(count, best);
+            for (int i = 0; i < count; i++) {
+                scalar.add(300);
+                vector.add(300);
+            }
+
+            double objects = 0, scalarRate = 0, vectorRate = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                objects = Math.max(objects, runObjects(birds, pipes, flaps, ticks));
+                scalarRate = Math.max(scalarRate, runBatch(scalar, pipes, flaps, ticks));
+                vectorRate = Math.max(vectorRate, runBatch(vector, pipes, flaps, ticks));
+            }
+
+            System.out.printf(Locale.ROOT, "%8d %16.1f %16.1f %16.1f%n", count, objects, scalarRate, vectorRate);
+        }
+    }
+
+    private static double runObjects(Bird[] birds, ObstacleRing pipes, boolean[][] flaps, int ticks) {
+        int dead = 0;
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            boolean[] f = flaps[t & (flaps.length - 1)];
+            for (int i = 0; i < birds.length; i++) {
+                Bird b = birds[i];
+                if (f[i]) b.flap();
+                b.update(DT);
+                if (pipes.collides(b.getX(), b.getY(), b.getSize())) dead++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (dead < 0) System.out.println(dead);
+        return (double) birds.length * ticks / (elapsed / 1e3);
+    }
+
+    private static double runBatch(BirdBatch batch, ObstacleRing pipes, boolean[][] flaps, int ticks) {
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            System.arraycopy(flaps[t & (flaps.length - 1)], 0, batch.flap, 0, batch.size);
+            batch.step(DT, pipes, SCREEN_H);
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) batch.size * ticks / (elapsed / 1e3);
+    }
+
+    // flap roughly every 0.36s per bird so they hover instead of falling forever
+    private static boolean[][] flapPattern(int count, int ticks) {
+        SplittableRandom rand = new SplittableRandom(7);
+        boolean[][] f = new boolean[ticks][count];
+        for (int i = 0; i < count; i++) {
+            int phase = rand.nextInt(43);
+            for (int t = phase; t < ticks; t += 43) f[t][i] = true;
+        }
+        return f;
+    }
+}
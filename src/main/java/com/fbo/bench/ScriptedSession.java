@@ -0,0 +1,173 @@
+package com.fbo.bench;
+
+import com.fbo.Bird;
+import com.fbo.ObstacleRing;
+import com.fbo.graphics.RenderExecutor;
+import javafx.application.Platform;
+import javafx.scene.input.KeyCode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Plays the game through its real input, update and render path for GameplayBenchmark: menu, start, a number
+// of pipes, death, the highscore page and a restart, once per scenario. The game steps at a fixed dt so every
+// run sees the same level and the same frames; only the time they take varies.
+//
+// Scenarios are "off:500,on:50": whether interstitials are forced at every check, and the pipes to play. The
+// difficulty curve outruns any pilot long before 500 pipes, so the bird is invulnerable until the target and
+// then stops flapping.
+public final class ScriptedSession {
+    public static final double DT = 1.0 / 60;
+
+    private static final int HOLD_FRAMES = 90;
+    // how far ahead the pilot predicts, and how far below the gap centre it lets the bird sink
+    private static final double LEAD = 0.05;
+    private static final double DEADBAND = 6;
+
+    // the game side of the script, implemented by FlappyBirdFX
+    public interface Game {
+        void pressKey(KeyCode code);
+        void startFromMenu();
+        void openMenu();
+        void setInvulnerable(boolean invulnerable);
+        // null for the normal random roll
+        void forceInterstitials(Boolean show);
+        boolean isGameOver();
+        boolean isInterstitialActive();
+        int getScore();
+        Bird getBird();
+        ObstacleRing getObstacles();
+        RenderExecutor getRenderer();
+    }
+
+    private enum Phase { MENU, PLAY, FALL, GAME_OVER, HIGHSCORES, RESTARTED }
+
+    private static final List<FrameRecorder.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+    private final Game game;
+    private final List<String> names = new ArrayList<>();
+    private final List<Boolean> interstitials = new ArrayList<>();
+    private final List<Integer> pipes = new ArrayList<>();
+    private int scenario = -1;
+    private Phase phase;
+    private int phaseFrames;
+    private FrameRecorder recorder;
+    private long lastNow, frameStart;
+    private boolean finished;
+
+    public ScriptedSession(Game game, String spec) {
+        this.game = game;
+        for (String s : spec.split(",")) {
+            String[] parts = s.trim().split(":");
+            names.add("interstitials-" + parts[0]);
+            interstitials.add("on".equalsIgnoreCase(parts[0]));
+            pipes.add(Integer.parseInt(parts[1]));
+        }
+        next();
+    }
+
+    // finished scenarios, for a benchmark that launched the game in this JVM
+    static List<FrameRecorder.Result> results() { return results; }
+
+    private void next() {
+        scenario++;
+        phase = Phase.MENU;
+        phaseFrames = 0;
+        lastNow = 0;
+        recorder = new FrameRecorder(names.get(scenario));
+        recorder.start();
+    }
+
+    public void beforeFrame() {
+        if (finished) return;
+        frameStart = System.nanoTime();
+        phaseFrames++;
+        switch (phase) {
+            case MENU -> {
+                if (phaseFrames >= HOLD_FRAMES) {
+                    game.setInvulnerable(true);
+                    game.forceInterstitials(interstitials.get(scenario));
+                    game.startFromMenu();
+                    enter(Phase.PLAY);
+                }
+            }
+            case PLAY -> {
+                if (game.getScore() >= pipes.get(scenario)) {
+                    game.setInvulnerable(false);
+                    enter(Phase.FALL);
+                } else if (pilot()) {
+                    game.pressKey(KeyCode.SPACE);
+                }
+            }
+            case FALL -> {
+                if (game.isGameOver()) enter(Phase.GAME_OVER);
+            }
+            case GAME_OVER -> {
+                if (phaseFrames >= HOLD_FRAMES) {
+                    game.pressKey(KeyCode.CONTROL);
+                    enter(Phase.HIGHSCORES);
+                }
+            }
+            case HIGHSCORES -> {
+                if (phaseFrames >= HOLD_FRAMES) {
+                    game.setInvulnerable(true);
+                    game.pressKey(KeyCode.SPACE);
+                    enter(Phase.RESTARTED);
+                }
+            }
+            case RESTARTED -> {
+                if (pilot()) game.pressKey(KeyCode.SPACE);
+            }
+        }
+    }
+
+    public void afterFrame(long now) {
+        if (finished) return;
+        long work = System.nanoTime() - frameStart;
+        if (lastNow != 0) {
+            recorder.frame(now - lastNow, work);
+            RenderExecutor r = game.getRenderer();
+            recorder.draws(r.getIssued(), r.getElided(), r.getFlattened());
+        }
+        lastNow = now;
+
+        if (phase == Phase.RESTARTED && phaseFrames >= HOLD_FRAMES) {
+            FrameRecorder.Result r = recorder.finish();
+            results.add(r);
+            System.out.println(r);
+            game.forceInterstitials(null);
+            if (scenario + 1 < names.size()) {
+                game.openMenu();
+                next();
+            } else {
+                finished = true;
+                System.out.printf(Locale.ROOT, "Scripted session finished: %d scenarios%n", names.size());
+                Platform.exit();
+            }
+        }
+    }
+
+    private void enter(Phase p) {
+        phase = p;
+        phaseFrames = 0;
+    }
+
+    // flap when the bird is about to sink below the next gap's centre; interstitials swallow input anyway
+    private boolean pilot() {
+        if (game.isInterstitialActive() || game.isGameOver()) return false;
+        Bird bird = game.getBird();
+        ObstacleRing obstacles = game.getObstacles();
+        double target = -1;
+        for (int i = 0; i < obstacles.size(); i++) {
+            if (obstacles.x(i) + obstacles.width(i) > bird.getX()) {
+                target = obstacles.gapCenterY(i);
+                break;
+            }
+        }
+        if (target < 0) return false;
+        double vy = bird.getVy();
+        return bird.getCenterY() + vy * LEAD > target + DEADBAND && vy > -60;
+    }
+}
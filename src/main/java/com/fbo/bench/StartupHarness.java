@@ -0,0 +1,264 @@
+package com.fbo.bench;
+
+import com.fbo.FlappyBirdFX;
+import com.fbo.util.Percentiles;
+import com.fbo.util.StartupTrace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Time to first frame of the packaged app, broken down by startup milestone (see StartupTrace). Cold launches
+// drop the page cache first, which needs root or a --drop-caches command; warm launches follow one unrecorded
+// launch. Results are JSON, on stdout or in --out with a summary table on stdout. Headless hosts run it under
+// Xvfb; JavaFX falls back to software rendering there.
+//
+// --archive alternates every launch with one that maps the AppCDS archive the build trains, so disk cache and
+// CPU frequency drift hit both sides alike. It defaults to launching the jlinked runtime's java, since the
+// packaged launcher maps the archive already; -Xshare:on makes a stale archive fail the launch instead of
+// quietly measuring nothing.
+// xvfb-run -a java -cp target/classes com.fbo.bench.StartupHarness --runs 20 --cold 5 [--out startup.json]
+//         [--drop-caches "sudo sysctl vm.drop_caches=3"] [--archive [target/app-runtime/lib/flappybirdfx.jsa]]
+//         [-- target/installer/FlappyBird/bin/FlappyBird]
+public final class StartupHarness {
+    private static final double[] PERCENTILES = {50, 90, 95, 99};
+    private static final long LAUNCH_TIMEOUT_S = 60;
+
+    public static void main(String[] args) throws Exception {
+        int runs = 10, coldRuns = 0;
+        String dropCaches = null;
+        Path out = null, archive = null;
+        List<String> command = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--cold" -> coldRuns = Integer.parseInt(args[++i]);
+                case "--drop-caches" -> dropCaches = args[++i];
+                case "--out" -> out = Paths.get(args[++i]);
+                case "--archive" -> archive = i + 1 < args.length && !args[i + 1].startsWith("--")
+                        ? Paths.get(args[++i]) : Paths.get("target", "app-runtime", "lib", "flappybirdfx.jsa");
+                case "--" -> command.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+            if (!command.isEmpty()) break;
+        }
+        if (archive != null && !Files.exists(archive)) {
+            System.err.println("No CDS archive at " + archive + "; package with -Pappcds-training first");
+            System.exit(1);
+        }
+        if (command.isEmpty()) command.addAll(archive != null ? runtimeCommand() : List.of(
+                Paths.get("target", "installer", "FlappyBird", "bin", "FlappyBird").toString()));
+
+        // JVM options per variant, launched in turn
+        List<String> names = new ArrayList<>(List.of(archive != null ? "default_cds" : ""));
+        List<String> options = new ArrayList<>(List.of(""));
+        if (archive != null) {
+            names.add("appcds");
+            options.add("-XX:SharedArchiveFile=" + archive.toAbsolutePath() + " -Xshare:on");
+        }
+
+        List<Series> all = new ArrayList<>();
+        List<Series> cold = new ArrayList<>(), warm = new ArrayList<>();
+        for (String n : names) {
+            cold.add(new Series(n.isEmpty() ? "cold" : "cold_" + n));
+            warm.add(new Series(n.isEmpty() ? "warm" : "warm_" + n));
+        }
+        all.addAll(cold);
+        all.addAll(warm);
+
+        coldLaunches:
+        for (int i = 0; i < coldRuns; i++) {
+            for (int v = 0; v < options.size(); v++) {
+                if (!dropCaches(dropCaches)) {
+                    System.err.println("Cannot drop the page cache; skipping cold launches (run as root or pass --drop-caches)");
+                    break coldLaunches;
+                }
+                cold.get(v).add(launch(command, options.get(v)));
+            }
+        }
+
+        for (String o : options) launch(command, o);
+        for (int i = 0; i < runs; i++) {
+            for (int v = 0; v < options.size(); v++) warm.get(v).add(launch(command, options.get(v)));
+        }
+
+        String json = json(command, all);
+        if (out != null) {
+            Files.writeString(out, json);
+            for (Series s : all) s.print();
+            if (archive != null) printSaving(warm.get(0), warm.get(1));
+            System.out.println("Wrote " + out);
+        } else {
+            System.out.print(json);
+        }
+    }
+
+    private static List<String> runtimeCommand() {
+        return List.of(Paths.get("target", "app-runtime", "bin", "java").toString(), "-m",
+                "com.fbo.flappybirdfx/" + FlappyBirdFX.class.getName());
+    }
+
+    // milestone -> microseconds since this process launched it, in the order the app reached them; null if the
+    // launch failed or hung before its first frame
+    private static LinkedHashMap<String, Long> launch(List<String> command, String vmOptions) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command).redirectErrorStream(true);
+        // honoured by java and by jpackage launchers alike
+        String opts = pb.environment().getOrDefault("JDK_JAVA_OPTIONS", "");
+        pb.environment().put("JDK_JAVA_OPTIONS", (opts + " " + vmOptions + " -Dflappybirdfx.exitAfterFirstFrame=true").trim());
+
+        long launched = micros(Instant.now());
+        Process p = pb.start();
+        // read on its own thread: a launch that hangs keeps its output open, and the timeout has to still fire
+        List<String> trace = new ArrayList<>(1);
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith(StartupTrace.PREFIX)) {
+                        synchronized (trace) {
+                            trace.add(line);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // destroyed on timeout
+            }
+        }, "startup-harness-output");
+        reader.setDaemon(true);
+        reader.start();
+
+        if (!p.waitFor(LAUNCH_TIMEOUT_S, TimeUnit.SECONDS)) {
+            p.destroyForcibly();
+            p.waitFor();
+            System.err.println("Launch did not exit within " + LAUNCH_TIMEOUT_S + " s: " + command);
+            return null;
+        }
+        reader.join(TimeUnit.SECONDS.toMillis(5));
+        String line;
+        synchronized (trace) {
+            line = trace.isEmpty() ? null : trace.get(trace.size() - 1);
+        }
+        if (line == null || p.exitValue() != 0) {
+            System.err.println("Launch failed before its first frame (exit " + p.exitValue() + "): " + command);
+            return null;
+        }
+        LinkedHashMap<String, Long> marks = new LinkedHashMap<>();
+        for (String kv : line.substring(StartupTrace.PREFIX.length()).trim().split(" ")) {
+            int eq = kv.indexOf('=');
+            marks.put(kv.substring(0, eq), Long.parseLong(kv.substring(eq + 1)) - launched);
+        }
+        return marks;
+    }
+
+    private static boolean dropCaches(String command) throws IOException, InterruptedException {
+        if (command != null) return new ProcessBuilder("sh", "-c", "sync && " + command).inheritIO().start().waitFor() == 0;
+        new ProcessBuilder("sync").start().waitFor();
+        try {
+            Files.writeString(Paths.get("/proc/sys/vm/drop_caches"), "3");
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long micros(Instant t) {
+        return t.getEpochSecond() * 1_000_000 + t.getNano() / 1000;
+    }
+
+    // at the median of the last milestone both sides reached, which is the first frame on a full launch
+    private static void printSaving(Series base, Series cds) {
+        if (base.samples.isEmpty() || cds.samples.isEmpty()) return;
+        String last = base.milestones.get(base.milestones.size() - 1);
+        double b = Percentiles.of(base.sinceLaunch(last), 50), c = Percentiles.of(cds.sinceLaunch(last), 50);
+        System.out.printf(Locale.ROOT, "AppCDS saves %.0f ms (%.0f%%) to %s at the median%n", b - c, 100 * (1 - c / b), last);
+    }
+
+    private static String json(List<String> command, List<Series> series) {
+        StringBuilder sb = new StringBuilder("{\n  \"command\": [");
+        for (int i = 0; i < command.size(); i++) sb.append(i > 0 ? ", " : "").append(quote(command.get(i)));
+        sb.append("],\n  \"percentiles\": ").append(Arrays.toString(PERCENTILES)).append(",\n  \"series\": {");
+        for (int i = 0; i < series.size(); i++) {
+            sb.append(i > 0 ? "," : "").append("\n    ").append(quote(series.get(i).name)).append(": ");
+            series.get(i).json(sb);
+        }
+        return sb.append("\n  }\n}\n").toString();
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static final class Series {
+        final String name;
+        final List<String> milestones = new ArrayList<>();
+        final List<LinkedHashMap<String, Long>> samples = new ArrayList<>();
+        int failures;
+
+        Series(String name) {
+            this.name = name;
+        }
+
+        void add(LinkedHashMap<String, Long> marks) {
+            if (marks == null) {
+                failures++;
+                return;
+            }
+            for (String m : marks.keySet()) if (!milestones.contains(m)) milestones.add(m);
+            samples.add(marks);
+        }
+
+        // since launch, and the phase ending at each milestone: time since the milestone before it
+        double[] sinceLaunch(String m) {
+            return samples.stream().filter(s -> s.containsKey(m)).mapToDouble(s -> s.get(m) / 1000.0).sorted().toArray();
+        }
+
+        double[] phase(String m) {
+            int i = milestones.indexOf(m);
+            return samples.stream().filter(s -> s.containsKey(m))
+                    .mapToDouble(s -> (s.get(m) - (i > 0 && s.containsKey(milestones.get(i - 1)) ? s.get(milestones.get(i - 1)) : 0)) / 1000.0)
+                    .sorted().toArray();
+        }
+
+        void json(StringBuilder sb) {
+            sb.append("{\n      \"runs\": ").append(samples.size()).append(", \"failures\": ").append(failures);
+            sb.append(",\n      \"milestones\": {");
+            for (int i = 0; i < milestones.size(); i++) {
+                String m = milestones.get(i);
+                sb.append(i > 0 ? "," : "").append("\n        ").append(quote(m)).append(": {\"since_launch_ms\": ");
+                stats(sb, sinceLaunch(m));
+                sb.append(", \"phase_ms\": ");
+                stats(sb, phase(m));
+                sb.append('}');
+            }
+            sb.append("\n      }\n    }");
+        }
+
+        private static void stats(StringBuilder sb, double[] sorted) {
+            sb.append('{');
+            if (sorted.length > 0) {
+                sb.append(String.format(Locale.ROOT, "\"min\": %.2f", sorted[0]));
+                for (double p : PERCENTILES) sb.append(String.format(Locale.ROOT, ", \"p%.0f\": %.2f", p, Percentiles.of(sorted, p)));
+                sb.append(String.format(Locale.ROOT, ", \"max\": %.2f", sorted[sorted.length - 1]));
+            }
+            sb.append('}');
+        }
+
+        void print() {
+            System.out.printf(Locale.ROOT, "%s: %d runs, %d failed%n", name, samples.size(), failures);
+            if (samples.isEmpty()) return;
+            System.out.printf(Locale.ROOT, "  %-16s %12s %12s %12s%n", "milestone", "p50 ms", "p90 ms", "phase p50");
+            for (String m : milestones) {
+                double[] t = sinceLaunch(m);
+                System.out.printf(Locale.ROOT, "  %-16s %12.1f %12.1f %12.1f%n", m, Percentiles.of(t, 50),
+                        Percentiles.of(t, 90), Percentiles.of(phase(m), 50));
+            }
+        }
+    }
+}
@@ -4,22 +4,71 @@ public final class GameConfig {
     private GameConfig() {}
 
     public static final int BIRD_SIZE = 40;
-    public static final double GRAVITY = 850.0;
-    public static final double FLAP_STRENGTH = -380.0;
+    public static final double GRAVITY = 900.0;
+    public static final double FLAP_STRENGTH = -320.0;
 
     public static final double BASE_PIPE_SPEED = 160.0;
     public static final int PIPE_WIDTH = 72;
     public static final int INITIAL_PIPE_GAP = 300;
     public static final double PIPE_SPACING = 380.0;
 
-    public static final int POOL_SIZE = 12;
+    // power of two; endless modes with narrow, fast obstacles can raise it
+    public static final int OBSTACLE_CAPACITY = 64;
+
+    // independent game windows in one JVM, e.g. one per screen of a multi-screen cabinet
+    public static final int SESSIONS = Math.max(1, Integer.getInteger("flappybirdfx.sessions", 1));
+
+    public static final boolean SIM_THREAD = Boolean.getBoolean("flappybirdfx.simThread");
+    public static final int SIM_TICK_HZ = 120;
+
+    public static final boolean SOFTWARE_PARTICLES = Boolean.getBoolean("flappybirdfx.softwareParticles");
+    public static final int PARTICLE_BUDGET = 1024;
+    public static final int MAX_EMITTERS = 32;
+
+    // decoded images kept once nothing holds them; skin packs with many large PNGs may want more
+    public static final long IMAGE_CACHE_BUDGET = Long.getLong("flappybirdfx.imageCacheMB", 64) << 20;
+    public static final boolean ASSET_REPORT = Boolean.getBoolean("flappybirdfx.assetReport");
+
+    // training and startup-benchmark launches: report the first frame and exit without saving anything
+    public static final boolean EXIT_AFTER_FIRST_FRAME = Boolean.getBoolean("flappybirdfx.exitAfterFirstFrame");
+    // scenarios for a scripted benchmark session, e.g. "off:500,on:50"; see ScriptedSession
+    public static final String BENCHMARK_SCRIPT = System.getProperty("flappybirdfx.benchmark");
+
+    // a pulse gap longer than this is a hitch worth explaining (F9 in game); 0 turns the analyzer off
+    public static final double HITCH_BUDGET_MS = Double.parseDouble(System.getProperty("flappybirdfx.hitchBudgetMs", "25"));
+    public static final int HITCH_HISTORY = 64;
+
+    // "mixer" plays WAV effects and the interstitial's audio through the javax.sound mixer instead of MediaPlayer
+    public static final boolean AUDIO_MIXER = "mixer".equalsIgnoreCase(System.getProperty("flappybirdfx.audio", "media"));
+
+    // recorded runs raced per game, and kept per level seed on disk
+    public static final int MAX_GHOSTS = 256;
+
+    // level chunks are validated at this window height; taller windows stretch gap deltas further
+    public static final double LEVEL_REFERENCE_HEIGHT = 1080.0;
+    public static final int LEVEL_LOOKAHEAD_CHUNKS = 3;
+    public static final double MAX_DIFFICULTY_MULTIPLIER = 1.5;
+    // "daily" for the date-based seed shared by every player, a number for a fixed seed, unset for random runs
+    public static final String LEVEL_SEED = System.getProperty("flappybirdfx.seed");
 
     public static final int INTERSTITIAL_MS = 6000;
     public static final int INTERSTITIAL_TRIGGER_SCORE = 4;
 
+    // difficulty curve; BalanceTool varies these around their defaults
+    public static final double DIFFICULTY_TIME_DIVISOR = 8.0;
+    public static final double DIFFICULTY_SCORE_SLOPE = 0.02;
+    public static final double DIFFICULTY_FLOOR = 0.6;
+    public static final double GAP_SCORE_SLOPE = 1.5;
+    public static final double GAP_TIME_SLOPE = 6.0;
+    public static final int MIN_PIPE_GAP = 120;
+
     public static double getDifficultyFactor(double playTimeSeconds, int score, double userMultiplier) {
-        double timeFactor = 1.0 + Math.log1p(playTimeSeconds) / 8.0;
-        double scoreFactor = 1.0 + score * 0.02;
-        return Math.max(0.6, userMultiplier * timeFactor * scoreFactor);
+        double timeFactor = 1.0 + Math.log1p(playTimeSeconds) / DIFFICULTY_TIME_DIVISOR;
+        double scoreFactor = 1.0 + score * DIFFICULTY_SCORE_SLOPE;
+        return Math.max(DIFFICULTY_FLOOR, userMultiplier * timeFactor * scoreFactor);
+    }
+
+    public static int getPipeGap(double playTimeSeconds, int score) {
+        return Math.max(MIN_PIPE_GAP, INITIAL_PIPE_GAP - (int) (score * GAP_SCORE_SLOPE + Math.log1p(playTimeSeconds) * GAP_TIME_SLOPE));
     }
 }
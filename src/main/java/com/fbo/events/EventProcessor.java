@@ -0,0 +1,63 @@
+package com.fbo.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public final class EventProcessor {
+    private final GameEventBus bus;
+    private final GameEventHandler handler;
+    final AtomicLong sequence;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    EventProcessor(GameEventBus bus, GameEventHandler handler, long start) {
+        this.bus = bus;
+        this.handler = handler;
+        this.sequence = new AtomicLong(start);
+    }
+
+    public int drain() {
+        long next = sequence.get() + 1;
+        long available = bus.getCursor();
+        if (available < next) return 0;
+
+        for (long s = next; s <= available; s++) {
+            try {
+                bus.dispatch(s, handler);
+            } catch (Exception e) {
+                System.err.println("Game event handler failed: " + e.getMessage());
+            }
+        }
+        sequence.lazySet(available);
+        return (int) (available - next + 1);
+    }
+
+    public void start(String name, long idleParkNanos) {
+        if (thread != null) return;
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                if (drain() == 0) LockSupport.parkNanos(idleParkNanos);
+            }
+            drain();
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void halt() {
+        running = false;
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        bus.unsubscribe(this);
+    }
+}
@@ -0,0 +1,112 @@
+package com.fbo.events;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class GameEventBus {
+    public static final int FLAP = 1;
+    public static final int SCORE = 2;
+    public static final int DEATH = 3;
+    public static final int INTERSTITIAL_CHECK = 4;
+    public static final int HIGHSCORES_CHANGED = 5;
+    public static final int GHOSTS_WANTED = 6;
+    public static final int TYPE_COUNT = 7;
+
+    public static final int FLAG_NEW_HIGHSCORE = 1;
+
+    private final int capacity;
+    private final int mask;
+
+    // one slot per column so publishing never allocates
+    private final int[] types;
+    private final int[] scores;
+    private final int[] flags;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] values;
+
+    // last published sequence, written only by the producer
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private volatile AtomicLong[] gating = new AtomicLong[0];
+    private long cachedGate = -1;
+    private long dropped = 0;
+
+    public GameEventBus(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        types = new int[capacity];
+        scores = new int[capacity];
+        flags = new int[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        values = new double[capacity];
+    }
+
+    public boolean publish(int type, int score) {
+        return publish(type, score, 0, 0, 0, 0);
+    }
+
+    public boolean publish(int type, int score, int eventFlags, double x, double y, double value) {
+        long next = cursor.get() + 1;
+        long wrapPoint = next - capacity;
+        if (wrapPoint > cachedGate) {
+            cachedGate = minimumGatingSequence(next - 1);
+            if (wrapPoint > cachedGate) {
+                // never block the frame: a slow consumer loses events instead
+                dropped++;
+                return false;
+            }
+        }
+
+        int i = (int) (next & mask);
+        types[i] = type;
+        scores[i] = score;
+        flags[i] = eventFlags;
+        xs[i] = x;
+        ys[i] = y;
+        values[i] = value;
+        cursor.lazySet(next);
+        return true;
+    }
+
+    public EventProcessor subscribe(GameEventHandler handler) {
+        EventProcessor processor = new EventProcessor(this, handler, cursor.get());
+        synchronized (this) {
+            AtomicLong[] next = Arrays.copyOf(gating, gating.length + 1);
+            next[next.length - 1] = processor.sequence;
+            gating = next;
+        }
+        return processor;
+    }
+
+    synchronized void unsubscribe(EventProcessor processor) {
+        AtomicLong[] current = gating;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == processor.sequence) {
+                AtomicLong[] next = new AtomicLong[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                gating = next;
+                return;
+            }
+        }
+    }
+
+    private long minimumGatingSequence(long fallback) {
+        long min = fallback;
+        for (AtomicLong s : gating) min = Math.min(min, s.get());
+        return min;
+    }
+
+    long getCursor() { return cursor.get(); }
+
+    void dispatch(long sequence, GameEventHandler handler) {
+        int i = (int) (sequence & mask);
+        handler.onEvent(types[i], scores[i], flags[i], xs[i], ys[i], values[i]);
+    }
+
+    public long getDropped() { return dropped; }
+
+    public int getCapacity() { return capacity; }
+}
@@ -0,0 +1,6 @@
+package com.fbo.events;
+
+@FunctionalInterface
+public interface GameEventHandler {
+    void onEvent(int type, int score, int flags, double x, double y, double value);
+}
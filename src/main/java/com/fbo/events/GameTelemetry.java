@@ -0,0 +1,16 @@
+package com.fbo.events;
+
+public final class GameTelemetry implements GameEventHandler {
+    private final long[] counts = new long[GameEventBus.TYPE_COUNT];
+    private int bestScore = 0;
+
+    @Override
+    public void onEvent(int type, int score, int flags, double x, double y, double value) {
+        if (type > 0 && type < counts.length) counts[type]++;
+        if (score > bestScore) bestScore = score;
+    }
+
+    public long getCount(int type) { return counts[type]; }
+
+    public int getBestScore() { return bestScore; }
+}
@@ -0,0 +1,81 @@
+package com.fbo.ghost;
+
+import com.fbo.graphics.RenderCommandBuffer;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+// Ghost positions as of one simulation tick, copied into the snapshot the renderer reads.
+public final class GhostFrame {
+    private static final double ALPHA = 0.25;
+    private static final double PERSONAL_ALPHA = 0.5;
+    // ghosts share x, so two within a few pixels of each other are indistinguishable; draw one per band
+    private static final int BAND = 4;
+
+    final double[] y;
+    final boolean[] dead;
+    int count;
+    double x, size;
+    boolean personal;
+
+    private long[] drawn = new long[32];
+
+    public GhostFrame(int capacity) {
+        y = new double[capacity];
+        dead = new boolean[capacity];
+    }
+
+    public void copyFrom(GhostRace race) {
+        race.copyTo(this);
+    }
+
+    public int getCount() { return count; }
+
+    // one sorted pass of the same sprite: culled to the view and deduplicated by band, so the draw count is
+    // bounded by the view height rather than the number of ghosts
+    public int render(RenderCommandBuffer r, Image sprite, double viewH) {
+        if (count == 0) return 0;
+        int bands = (int) ((viewH + size) / BAND) + 1;
+        int words = (bands + 63) >>> 6;
+        if (drawn.length < words) drawn = new long[words];
+        Arrays.fill(drawn, 0, words, 0L);
+
+        int draws = 0;
+        int first = 0;
+        if (sprite == null) r.setFill(Color.WHITE);
+        if (personal) {
+            r.setGlobalAlpha(PERSONAL_ALPHA);
+            if (visible(0, viewH)) {
+                draw(r, sprite, y[0]);
+                draws++;
+            }
+            first = 1;
+        }
+
+        r.setGlobalAlpha(ALPHA);
+        r.beginSorted();
+        for (int i = first; i < count; i++) {
+            if (!visible(i, viewH)) continue;
+            int band = (int) ((y[i] + size) / BAND);
+            long bit = 1L << band;
+            if ((drawn[band >>> 6] & bit) != 0) continue;
+            drawn[band >>> 6] |= bit;
+            draw(r, sprite, y[i]);
+            draws++;
+        }
+        r.endSorted();
+        r.setGlobalAlpha(1.0);
+        return draws;
+    }
+
+    private boolean visible(int i, double viewH) {
+        double gy = y[i];
+        return gy + size > 0 && gy < viewH;
+    }
+
+    private void draw(RenderCommandBuffer r, Image sprite, double gy) {
+        if (sprite != null) r.drawImage(sprite, x, gy, size, size);
+        else r.fillOval(x, gy, size, size);
+    }
+}
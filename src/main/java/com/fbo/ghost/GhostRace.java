@@ -0,0 +1,72 @@
+package com.fbo.ghost;
+
+import com.fbo.ObstacleRing;
+import com.fbo.sim.BirdBatch;
+
+import java.util.List;
+
+// Replays recorded runs next to the live bird. Every ghost is one lane of a BirdBatch, stepped after the
+// obstacles move so it sees exactly what the live bird sees on that tick.
+public final class GhostRace {
+    private final BirdBatch batch;
+    private final GhostRun[] runs;
+    private final int[] cursor;
+    private boolean personal;
+
+    public GhostRace(int capacity) {
+        batch = new BirdBatch(capacity);
+        runs = new GhostRun[capacity];
+        cursor = new int[capacity];
+    }
+
+    public void start(List<GhostRun> selected, boolean firstIsPersonal, double x, double startY) {
+        batch.clear();
+        batch.x = x;
+        for (GhostRun run : selected) {
+            int i = batch.add(startY);
+            if (i < 0) break;
+            runs[i] = run;
+            cursor[i] = 0;
+        }
+        for (int i = batch.size; i < runs.length; i++) runs[i] = null;
+        personal = firstIsPersonal && batch.size > 0;
+    }
+
+    public void clear() {
+        start(List.of(), false, batch.x, 0);
+    }
+
+    // tick is the live game's play tick count before this tick, the same value flaps were recorded at
+    public void step(int tick, double dt, ObstacleRing pipes, double screenH) {
+        int n = batch.size;
+        if (n == 0) return;
+        boolean[] dead = batch.dead;
+        for (int i = 0; i < n; i++) {
+            GhostRun run = runs[i];
+            int[] ticks = run.flapTicks;
+            int c = cursor[i];
+            while (c < ticks.length && ticks[c] <= tick) {
+                if (!dead[i]) batch.flap(i, run.flapAt[c]);
+                c++;
+            }
+            cursor[i] = c;
+            // a window resized mid-run moves the live obstacles away from the recording; the run still ends where it ended
+            if (tick >= run.endTick) dead[i] = true;
+        }
+        batch.step(dt, pipes, screenH);
+    }
+
+    public int size() { return batch.size; }
+
+    public int countAlive() { return batch.countAlive(); }
+
+    void copyTo(GhostFrame f) {
+        int n = batch.size;
+        f.count = n;
+        f.x = batch.x;
+        f.size = batch.birdSize;
+        f.personal = personal;
+        System.arraycopy(batch.y, 0, f.y, 0, n);
+        System.arraycopy(batch.dead, 0, f.dead, 0, n);
+    }
+}
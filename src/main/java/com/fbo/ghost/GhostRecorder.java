@@ -0,0 +1,37 @@
+package com.fbo.ghost;
+
+import java.util.Arrays;
+
+// Collects the live player's flaps during a game; owned by whichever thread runs the simulation.
+public final class GhostRecorder {
+    private int[] ticks = new int[256];
+    private double[] at = new double[256];
+    private int count = 0;
+    private long seed;
+    private double difficulty;
+    private int viewW, viewH;
+
+    public void begin(long seed, double difficulty, double viewW, double viewH) {
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.viewW = (int) viewW;
+        this.viewH = (int) viewH;
+        count = 0;
+    }
+
+    // tick is the number of play ticks before the one the flap lands in, at is how far into that tick
+    public void flap(int tick, double at) {
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            this.at = Arrays.copyOf(this.at, count * 2);
+        }
+        ticks[count] = tick;
+        this.at[count] = at;
+        count++;
+    }
+
+    public GhostRun finish(String user, int score, int endTick) {
+        return new GhostRun(user, seed, difficulty, viewW, viewH, score, endTick,
+                Arrays.copyOf(ticks, count), Arrays.copyOf(at, count));
+    }
+}
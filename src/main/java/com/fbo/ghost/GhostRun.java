@@ -0,0 +1,34 @@
+package com.fbo.ghost;
+
+// One finished game: enough to replay it against the same level. Flaps are the play tick each landed in and how
+// far into it, and the run ends on the tick it died in, so a replay on the fixed simulation tick reproduces it exactly.
+public final class GhostRun {
+    public final String user;
+    public final long seed;
+    public final double difficulty;
+    public final int viewW, viewH;
+    public final int score;
+    public final int endTick;
+    final int[] flapTicks;
+    final double[] flapAt;
+
+    public GhostRun(String user, long seed, double difficulty, int viewW, int viewH, int score, int endTick,
+                    int[] flapTicks, double[] flapAt) {
+        this.user = user;
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.viewW = viewW;
+        this.viewH = viewH;
+        this.score = score;
+        this.endTick = endTick;
+        this.flapTicks = flapTicks;
+        this.flapAt = flapAt;
+    }
+
+    public int flapCount() { return flapTicks.length; }
+
+    // obstacle placement depends on the window size and pipe speed on the difficulty; other runs would not line up
+    public boolean matches(long seed, double difficulty, int viewW, int viewH) {
+        return this.seed == seed && this.difficulty == difficulty && this.viewW == viewW && this.viewH == viewH;
+    }
+}
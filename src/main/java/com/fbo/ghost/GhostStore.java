@@ -0,0 +1,145 @@
+package com.fbo.ghost;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+// Runs per level seed, one file each under the given directory. Keeps the best runs by score plus every
+// player's personal best, so a player always has their own ghost to race.
+public final class GhostStore {
+    private static final int MAGIC = 0x47485354;
+    // 2: flaps and the end as play ticks rather than seconds; 3: how far into its tick each flap landed
+    private static final int VERSION = 3;
+    // levels kept in memory; a daily seed changes once a day and a fixed one never, so a few is plenty
+    private static final int CACHED_SEEDS = 8;
+
+    private final Path dir;
+    private final int capacity;
+    private final Map<Long, List<GhostRun>> bySeed = new LinkedHashMap<>(CACHED_SEEDS * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<GhostRun>> eldest) {
+            return size() > CACHED_SEEDS;
+        }
+    };
+
+    public GhostStore(Path dir, int capacity) {
+        this.dir = dir;
+        this.capacity = capacity;
+    }
+
+    // a level's runs as they were when loaded; reads the file the first time, so not for the frame thread
+    public synchronized Loaded load(long seed) {
+        return new Loaded(seed, List.copyOf(runs(seed)));
+    }
+
+    // own best first, then everyone else's runs by score, only those that replay against this level
+    public static List<GhostRun> select(Loaded loaded, String user, double difficulty, int viewW, int viewH, int max) {
+        List<GhostRun> out = new ArrayList<>();
+        GhostRun own = null;
+        long seed = loaded.seed;
+        for (GhostRun g : loaded.runs) {
+            if (!g.matches(seed, difficulty, viewW, viewH)) continue;
+            if (own == null && g.user.equals(user)) own = g;
+            else out.add(g);
+        }
+        if (own != null) out.add(0, own);
+        return out.size() > max ? new ArrayList<>(out.subList(0, max)) : out;
+    }
+
+    public synchronized void submit(GhostRun run) {
+        List<GhostRun> all = new ArrayList<>(runs(run.seed));
+        all.add(run);
+        all.sort((a, b) -> Integer.compare(b.score, a.score));
+
+        List<GhostRun> kept = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (GhostRun g : all) {
+            String key = g.user + '\0' + g.difficulty + '\0' + g.viewW + 'x' + g.viewH;
+            if (seen.add(key) || kept.size() < capacity) kept.add(g);
+        }
+        bySeed.put(run.seed, kept);
+        save(run.seed, kept);
+    }
+
+    private List<GhostRun> runs(long seed) {
+        List<GhostRun> runs = bySeed.get(seed);
+        if (runs == null) {
+            runs = read(seed);
+            bySeed.put(seed, runs);
+        }
+        return runs;
+    }
+
+    private Path file(long seed) {
+        return dir.resolve(Long.toHexString(seed) + ".ghosts");
+    }
+
+    private List<GhostRun> read(long seed) {
+        Path f = file(seed);
+        List<GhostRun> runs = new ArrayList<>();
+        if (!Files.exists(f)) return runs;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(f)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.err.println("Ignoring ghost file with unknown format: " + f);
+                return runs;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String user = in.readUTF();
+                double difficulty = in.readDouble();
+                int w = in.readInt(), h = in.readInt();
+                int score = in.readInt();
+                int endTick = in.readInt();
+                int[] ticks = new int[in.readInt()];
+                double[] at = new double[ticks.length];
+                for (int k = 0; k < ticks.length; k++) {
+                    ticks[k] = in.readInt();
+                    at[k] = in.readDouble();
+                }
+                runs.add(new GhostRun(user, seed, difficulty, w, h, score, endTick, ticks, at));
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to load ghosts: " + e.getMessage());
+        }
+        return runs;
+    }
+
+    private void save(long seed, List<GhostRun> runs) {
+        try {
+            if (!Files.exists(dir)) Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "ghosts", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(runs.size());
+                for (GhostRun g : runs) {
+                    out.writeUTF(g.user);
+                    out.writeDouble(g.difficulty);
+                    out.writeInt(g.viewW);
+                    out.writeInt(g.viewH);
+                    out.writeInt(g.score);
+                    out.writeInt(g.endTick);
+                    out.writeInt(g.flapTicks.length);
+                    for (int k = 0; k < g.flapTicks.length; k++) {
+                        out.writeInt(g.flapTicks[k]);
+                        out.writeDouble(g.flapAt[k]);
+                    }
+                }
+            }
+            Files.move(tmp, file(seed), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            System.err.println("Failed to save ghosts: " + e.getMessage());
+        }
+    }
+
+    // one level's runs, immutable, so the thread that loaded them can hand them to the one racing them
+    public static final class Loaded {
+        public final long seed;
+        final List<GhostRun> runs;
+
+        Loaded(long seed, List<GhostRun> runs) {
+            this.seed = seed;
+            this.runs = runs;
+        }
+    }
+}
@@ -1,59 +1,84 @@
 package com.fbo.graphics;
 
+import com.fbo.config.GameConfig;
 import com.fbo.util.ResourceUtils;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.media.Media;
 import javafx.scene.text.Font;
+import javafx.stage.Screen;
 
 import java.io.InputStream;
 import java.nio.file.Path;
 
-public class AssetManager {
-    private static final AssetManager INSTANCE = new AssetManager();
-    private AssetManager(){}
-    public static AssetManager get(){ return INSTANCE; }
-
-    public Image backgroundLayer1;
-    public Image backgroundLayer2;
-    public Image bird;
-    public Image pipeTexture;
-    public Image pipeCapTop;
-    public Image pipeCapBottom;
-    public Image particle;
-    public Image logo;
-    public Image interstitialPlaceholder;
-
-    // buttons
-    public Image buttonNormal;
-    public Image buttonPressed;
-
-    public Font uiLarge;
-    public Font uiMedium;
-    public Font uiSmall;
+// Decoded images and fonts shared by every game session in the JVM. Loaded once on first use and never
+// changed afterwards; anything a session can change lives in the session.
+public final class AssetManager {
+    private static final class Holder {
+        static final AssetManager INSTANCE = new AssetManager();
+    }
 
-    public Media interstitialVideo;
+    public static AssetManager get(){ return Holder.INSTANCE; }
 
-    private double difficultyMultiplier = 1.0;
+    public final Image backgroundLayer1;
+    public final Image backgroundLayer2;
+    public final Image bird;
+    public final Image pipeTexture;
+    public final Image pipeCapTop;
+    public final Image pipeCapBottom;
+    public final Image particle;
+    public final Image logo;
+    public final Image dialogLogo;
+    public final Image interstitialPlaceholder;
 
-    public void loadAll() {
-        backgroundLayer1 = loadImage("/images/bg_layer1.png");
-        backgroundLayer2 = loadImage("/images/bg_layer2.png");
-        bird = loadImage("/images/steve.png");
-        pipeTexture = loadImage("/images/dirt.png");
-        pipeCapTop = loadImage("/images/pipe_cap_top.png");
-        pipeCapBottom = loadImage("/images/pipe_cap_bottom.png");
-        particle = loadImage("/images/xp.png");
+    // buttons
+    public final Image buttonNormal;
+    public final Image buttonPressed;
+
+    public final Font uiLarge;
+    public final Font uiMedium;
+    public final Font uiSmall;
+    public final Font uiButton;
+
+    public final Media interstitialVideo;
+
+    public final ImageCache images = new ImageCache(GameConfig.IMAGE_CACHE_BUDGET);
+
+    // largest draw sizes not already in GameConfig; see LayoutCache, OverlayDialogs and EmitterDef
+    private static final double MENU_LOGO_W = 260;
+    private static final double DIALOG_LOGO_W = 60;
+    private static final double MENU_BUTTON_W = 280, MENU_BUTTON_H = 50;
+    private static final double PARTICLE_SPRITE_SIZE = 18;
+
+    private AssetManager() {
+        // decode for the largest size each image is drawn at, in device pixels
+        double s = displayScale();
+        double screenH = displayHeight() * s;
+
+        backgroundLayer1 = loadImage("/images/bg_layer1.png", 0, screenH);
+        backgroundLayer2 = loadImage("/images/bg_layer2.png", 0, screenH);
+        bird = loadImage("/images/steve.png", GameConfig.BIRD_SIZE * s, GameConfig.BIRD_SIZE * s);
+        // stretched over the whole pipe body
+        pipeTexture = loadImage("/images/dirt.png", GameConfig.PIPE_WIDTH * s, screenH);
+        pipeCapTop = loadImage("/images/pipe_cap_top.png", GameConfig.PIPE_WIDTH * s, 0);
+        pipeCapBottom = loadImage("/images/pipe_cap_bottom.png", GameConfig.PIPE_WIDTH * s, 0);
+        particle = loadImage("/images/xp.png", PARTICLE_SPRITE_SIZE * s, PARTICLE_SPRITE_SIZE * s);
 
         // Load buttons
-        buttonNormal = loadImage("/ui_pack/button1.png");
-        buttonPressed = loadImage("/ui_pack/button2.png");
+        buttonNormal = loadImage("/ui_pack/button1.png", MENU_BUTTON_W * s, MENU_BUTTON_H * s);
+        buttonPressed = loadImage("/ui_pack/button2.png", MENU_BUTTON_W * s, MENU_BUTTON_H * s);
 
-        logo = loadImage("/images/logo.png");
-        interstitialPlaceholder = loadImage("/images/logo.png");
+        logo = loadImage("/images/logo.png", MENU_LOGO_W * s, 0);
+        dialogLogo = loadImage("/images/logo.png", DIALOG_LOGO_W * s, 0);
+        interstitialPlaceholder = loadImage("/images/logo.png", 0, screenH);
 
-        loadFonts();
-        loadInterstitialVideo("/videos/interstitial.mp4");
+        String family = loadFontFamily("/fonts/MyFont.ttf");
+        uiLarge = Font.font(family, 72);
+        uiMedium = Font.font(family, 36);
+        uiSmall = Font.font(family, 20);
+        uiButton = Font.font(family, 20);
+
+        interstitialVideo = loadInterstitialVideo("/videos/interstitial.mp4");
     }
 
     public ImageView getButton(String state) {
@@ -65,51 +90,45 @@ public class AssetManager {
         return iv;
     }
 
-    private void loadFonts() {
-        try (InputStream is = getClass().getResourceAsStream("/fonts/MyFont.ttf")) {
+    private String loadFontFamily(String path) {
+        try (InputStream is = ResourceUtils.openResource(path)) {
             if (is != null) {
                 Font f = Font.loadFont(is, 48);
-                uiLarge = Font.font(f.getFamily(), 72);
-                uiMedium = Font.font(f.getFamily(), 36);
-                uiSmall = Font.font(f.getFamily(), 20);
-            } else {
-                setDefaultFonts();
+                if (f != null) return f.getFamily();
             }
-        } catch (Exception e) {
-            setDefaultFonts();
-        }
+        } catch (Exception ignored) {}
+        return "Verdana";
     }
 
-    private void setDefaultFonts() {
-        uiLarge = Font.font("Verdana", 72);
-        uiMedium = Font.font("Verdana", 36);
-        uiSmall = Font.font("Verdana", 20);
+    // held for the life of the process; released images are for skins and other transient users of the cache
+    private Image loadImage(String path, double maxW, double maxH) {
+        ImageCache.Handle h = images.acquire(path, maxW, maxH);
+        return h != null ? h.image() : null;
     }
 
-    private Image loadImage(String path) {
-        try (InputStream is = getClass().getResourceAsStream(path)) {
-            if (is == null) {
-                System.err.println("Resource not found: " + path);
-                return null;
-            }
-            Image image = new Image(is);
-            System.out.println("Loaded: " + path + " (" + image.getWidth() + "x" + image.getHeight() + ")");
-            return image;
-        } catch (Exception e) {
-            System.err.println("Failed to load image: " + path + " - " + e.getMessage());
-            return null;
-        }
+    private static double displayScale() {
+        double s = 1.0;
+        try {
+            for (Screen screen : Screen.getScreens()) s = Math.max(s, screen.getOutputScaleX());
+        } catch (Exception ignored) {}
+        return s;
     }
 
-    private void loadInterstitialVideo(String path) {
+    private static double displayHeight() {
+        double h = 1080;
+        try {
+            for (Screen screen : Screen.getScreens()) h = Math.max(h, screen.getBounds().getHeight());
+        } catch (Exception ignored) {}
+        return h;
+    }
+
+    private Media loadInterstitialVideo(String path) {
         try {
             Path tmp = ResourceUtils.copyResourceToTemp(path, ".mp4");
-            if (tmp != null) interstitialVideo = new Media(tmp.toUri().toString());
+            if (tmp != null) return new Media(tmp.toUri().toString());
         } catch (Exception e) {
             System.err.println("Failed to load video: " + e.getMessage());
         }
+        return null;
     }
-
-    public void setDifficultyMultiplier(double m){ difficultyMultiplier = m; }
-    public double getDifficultyMultiplier(){ return difficultyMultiplier; }
 }
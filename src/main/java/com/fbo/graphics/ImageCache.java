@@ -0,0 +1,215 @@
+package com.fbo.graphics;
+
+import com.fbo.assets.AssetArchive;
+import com.fbo.perf.HitchAnalyzer;
+import com.fbo.util.ResourceUtils;
+import javafx.scene.image.Image;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+// Decoded images keyed by (path, decoded size). Requests are scaled down to the size they are displayed at
+// before decoding, so equal requests share one Image. Holders release their handle when done; released images
+// stay cached until the byte budget needs the room, least recently used first.
+public final class ImageCache {
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+    // entries nobody holds, oldest release first
+    private final LinkedHashMap<Key, Entry> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, int[]> naturalSizes = new HashMap<>();
+    private final long budget;
+    private long bytes;
+    private long hits, misses, evictions;
+
+    public ImageCache(long budgetBytes) {
+        this.budget = budgetBytes;
+    }
+
+    // path is a classpath resource when it starts with '/', a file otherwise (skin packs). Width and height
+    // are the largest size the image is drawn at in device pixels, 0 for unconstrained. The image is decoded
+    // just large enough to cover that box and never larger than the file. Returns null if it cannot be loaded.
+    public synchronized Handle acquire(String path, double maxW, double maxH) {
+        int[] natural = naturalSize(path);
+        Key key = natural != null ? key(path, natural[0], natural[1], maxW, maxH) : new Key(path, 0, 0);
+
+        Entry e = entries.get(key);
+        if (e != null) {
+            hits++;
+        } else {
+            misses++;
+            long t = HitchAnalyzer.begin();
+            Image image = decode(path, key.w, key.h);
+            HitchAnalyzer.end(HitchAnalyzer.DECODE, path, t);
+            if (image == null) return null;
+            e = new Entry(key, image);
+            entries.put(key, e);
+            bytes += e.bytes;
+        }
+        if (e.refs++ == 0) idle.remove(key);
+        trim();
+        return new Handle(e);
+    }
+
+    private synchronized void release(Entry e) {
+        if (--e.refs == 0) {
+            idle.put(e.key, e);
+            trim();
+        }
+    }
+
+    private void trim() {
+        Iterator<Entry> it = idle.values().iterator();
+        while (bytes > budget && it.hasNext()) {
+            Entry e = it.next();
+            it.remove();
+            entries.remove(e.key);
+            bytes -= e.bytes;
+            evictions++;
+        }
+    }
+
+    private static Key key(String path, int nw, int nh, double maxW, double maxH) {
+        double f = 0;
+        if (maxW > 0) f = Math.max(f, maxW / nw);
+        if (maxH > 0) f = Math.max(f, maxH / nh);
+        if (f == 0 || f >= 1) return new Key(path, 0, 0);
+        return new Key(path, Math.max(1, (int) Math.ceil(nw * f)), Math.max(1, (int) Math.ceil(nh * f)));
+    }
+
+    private Image decode(String path, int w, int h) {
+        AssetArchive archive = AssetArchive.get();
+        Image packed = archive != null ? archive.image(path, w, h) : null;
+        if (packed != null) {
+            System.out.println("Loaded: " + path + " (" + packed.getWidth() + "x" + packed.getHeight() + ", packed)");
+            return packed;
+        }
+        try (InputStream is = open(path)) {
+            if (is == null) {
+                System.err.println("Resource not found: " + path);
+                return null;
+            }
+            Image image = w > 0 ? new Image(is, w, h, false, true) : new Image(is);
+            if (image.isError()) {
+                System.err.println("Failed to load image: " + path + " - " + image.getException());
+                return null;
+            }
+            System.out.println("Loaded: " + path + " (" + image.getWidth() + "x" + image.getHeight() + ")");
+            return image;
+        } catch (Exception e) {
+            System.err.println("Failed to load image: " + path + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    // reads the PNG header only; other formats decode at full size
+    private int[] naturalSize(String path) {
+        if (naturalSizes.containsKey(path)) return naturalSizes.get(path);
+        AssetArchive archive = AssetArchive.get();
+        int[] size = archive != null ? archive.naturalSize(path) : null;
+        if (size != null) {
+            naturalSizes.put(path, size);
+            return size;
+        }
+        try (InputStream is = open(path)) {
+            if (is != null) {
+                DataInputStream in = new DataInputStream(is);
+                byte[] sig = new byte[8];
+                in.readFully(sig);
+                in.readInt();
+                if (Arrays.equals(sig, PNG_SIGNATURE) && in.readInt() == 0x49484452) {
+                    size = new int[]{in.readInt(), in.readInt()};
+                }
+            }
+        } catch (IOException ignored) {}
+        naturalSizes.put(path, size);
+        return size;
+    }
+
+    private InputStream open(String path) throws IOException {
+        if (path.startsWith("/")) return ResourceUtils.openResource(path);
+        return Files.newInputStream(Paths.get(path));
+    }
+
+    public synchronized long getBytes() { return bytes; }
+
+    public synchronized String report() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        sorted.sort((a, b) -> Long.compare(b.bytes, a.bytes));
+
+        long held = 0;
+        StringBuilder sb = new StringBuilder();
+        for (Entry e : sorted) {
+            if (e.refs > 0) held += e.bytes;
+            int[] natural = naturalSizes.get(e.key.path);
+            sb.append(String.format(Locale.ROOT, "  %-32s %9s -> %4dx%-4d refs %2d %8.1f KB%n",
+                    e.key.path, natural != null ? natural[0] + "x" + natural[1] : "?",
+                    (int) e.image.getWidth(), (int) e.image.getHeight(), e.refs, e.bytes / 1024.0));
+        }
+
+        Runtime rt = Runtime.getRuntime();
+        String header = String.format(Locale.ROOT,
+                "image cache: %d images (%d held), %.1f MB decoded, budget %.1f MB, %d hits, %d misses, %d evicted%n"
+                        + "  textures: up to %.1f MB once drawn (32-bit per pixel); heap %.1f / %.1f MB%n",
+                entries.size(), entries.size() - idle.size(), bytes / 1048576.0, budget / 1048576.0,
+                hits, misses, evictions, held / 1048576.0,
+                (rt.totalMemory() - rt.freeMemory()) / 1048576.0, rt.totalMemory() / 1048576.0);
+        return header + sb;
+    }
+
+    public final class Handle {
+        private Entry entry;
+
+        private Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Image image() { return entry != null ? entry.image : null; }
+
+        public void release() {
+            Entry e = entry;
+            entry = null;
+            if (e != null) ImageCache.this.release(e);
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final Image image;
+        final long bytes;
+        int refs;
+
+        Entry(Key key, Image image) {
+            this.key = key;
+            this.image = image;
+            this.bytes = (long) image.getWidth() * (long) image.getHeight() * 4;
+        }
+    }
+
+    private static final class Key {
+        final String path;
+        final int w, h;
+
+        Key(String path, int w, int h) {
+            this.path = path;
+            this.w = w;
+            this.h = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return k.w == w && k.h == h && k.path.equals(path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, w, h);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.fbo.graphics;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.util.Arrays;
+
+public final class ParticleRasterizer {
+    public static final int BLEND_ALPHA = 0;
+    public static final int BLEND_ADD = 1;
+
+    // single-threaded: raster costs ~1 us a particle on top of ~1 ms of clear and upload, so the whole
+    // particle budget rasterizes in about a millisecond, too little to win back the cost of splitting rows
+    private final int blend;
+
+    private int width = 0, height = 0;
+    private int[] pixels = new int[0];
+    private WritableImage image;
+
+    // particles queued for this frame, one primitive array per attribute
+    private float[] px = new float[256];
+    private float[] py = new float[256];
+    private float[] radius = new float[256];
+    private int[] rgb = new int[256];
+    private float[] alpha = new float[256];
+    private int count = 0;
+
+    // dirty rectangle of this frame and of the previous upload, which has to be cleared
+    private int minX, minY, maxX, maxY;
+    private int prevMinX, prevMinY, prevMaxX = -1, prevMaxY = -1;
+
+    private long lastRasterNanos = 0;
+
+    public ParticleRasterizer(int blend) {
+        this.blend = blend;
+    }
+
+    public void begin(double viewW, double viewH) {
+        int w = Math.max(1, (int) Math.ceil(viewW));
+        int h = Math.max(1, (int) Math.ceil(viewH));
+        if (w != width || h != height) {
+            width = w;
+            height = h;
+            pixels = new int[w * h];
+            image = null;
+            prevMaxX = prevMaxY = -1;
+        }
+        count = 0;
+        minX = minY = Integer.MAX_VALUE;
+        maxX = maxY = -1;
+    }
+
+    public void add(double x, double y, double r, int rgbColor, double a) {
+        if (a <= 0) return;
+        if (count == px.length) grow();
+        px[count] = (float) x;
+        py[count] = (float) y;
+        radius[count] = (float) r;
+        rgb[count] = rgbColor & 0xFFFFFF;
+        alpha[count] = (float) Math.min(1.0, a);
+        count++;
+
+        minX = Math.min(minX, (int) Math.floor(x - r));
+        minY = Math.min(minY, (int) Math.floor(y - r));
+        maxX = Math.max(maxX, (int) Math.ceil(x + r));
+        maxY = Math.max(maxY, (int) Math.ceil(y + r));
+    }
+
+    public int size() { return count; }
+
+    public void finish(RenderCommandBuffer r) {
+        long start = System.nanoTime();
+
+        int x0 = clampX(minX), x1 = clampX(maxX);
+        int y0 = clampY(minY), y1 = clampY(maxY);
+        boolean drawn = count > 0 && x0 <= x1 && y0 <= y1;
+
+        int ux0 = drawn ? x0 : Integer.MAX_VALUE, uy0 = drawn ? y0 : Integer.MAX_VALUE;
+        int ux1 = drawn ? x1 : -1, uy1 = drawn ? y1 : -1;
+        if (prevMaxX >= 0) {
+            ux0 = Math.min(ux0, prevMinX);
+            uy0 = Math.min(uy0, prevMinY);
+            ux1 = Math.max(ux1, prevMaxX);
+            uy1 = Math.max(uy1, prevMaxY);
+        }
+
+        if (ux1 < 0) {
+            lastRasterNanos = System.nanoTime() - start;
+            return;
+        }
+
+        for (int y = uy0; y <= uy1; y++) {
+            int row = y * width;
+            Arrays.fill(pixels, row + ux0, row + ux1 + 1, 0);
+        }
+
+        if (drawn) rasterRows(y0, y1);
+
+        if (image == null) image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(ux0, uy0, ux1 - ux0 + 1, uy1 - uy0 + 1,
+                PixelFormat.getIntArgbPreInstance(), pixels, uy0 * width + ux0, width);
+
+        prevMinX = x0; prevMinY = y0;
+        prevMaxX = drawn ? x1 : -1;
+        prevMaxY = drawn ? y1 : -1;
+
+        if (drawn) r.drawImage(image, 0, 0, width, height);
+        lastRasterNanos = System.nanoTime() - start;
+    }
+
+    private void rasterRows(int rowFrom, int rowTo) {
+        for (int i = 0; i < count; i++) {
+            float r = radius[i];
+            float cy = py[i];
+            int ty0 = Math.max(rowFrom, (int) Math.floor(cy - r));
+            int ty1 = Math.min(rowTo, (int) Math.ceil(cy + r));
+            if (ty0 > ty1) continue;
+
+            float cx = px[i];
+            int color = rgb[i];
+            int sr = (color >> 16) & 0xFF, sg = (color >> 8) & 0xFF, sb = color & 0xFF;
+            float r2 = r * r;
+
+            for (int y = ty0; y <= ty1; y++) {
+                float dy = y + 0.5f - cy;
+                float span2 = r2 - dy * dy;
+                if (span2 < 0) continue;
+                float span = (float) Math.sqrt(span2);
+                int tx0 = Math.max(0, (int) Math.floor(cx - span));
+                int tx1 = Math.min(width - 1, (int) Math.ceil(cx + span) - 1);
+                int row = y * width;
+
+                for (int x = tx0; x <= tx1; x++) {
+                    // one pixel of anti-aliasing at the rim
+                    float dx = x + 0.5f - cx;
+                    float edge = r - (float) Math.sqrt(dx * dx + dy * dy);
+                    if (edge <= 0) continue;
+                    float a = alpha[i] * Math.min(1f, edge);
+                    pixels[row + x] = blend(pixels[row + x], sr, sg, sb, a);
+                }
+            }
+        }
+    }
+
+    private int blend(int dst, int sr, int sg, int sb, float a) {
+        int sa = (int) (a * 255f + 0.5f);
+        int pr = (sr * sa + 127) / 255;
+        int pg = (sg * sa + 127) / 255;
+        int pb = (sb * sa + 127) / 255;
+
+        int da = dst >>> 24, dr = (dst >> 16) & 0xFF, dg = (dst >> 8) & 0xFF, db = dst & 0xFF;
+        if (blend == BLEND_ADD) {
+            return (Math.min(255, da + sa) << 24) | (Math.min(255, dr + pr) << 16)
+                    | (Math.min(255, dg + pg) << 8) | Math.min(255, db + pb);
+        }
+        int inv = 255 - sa;
+        return ((sa + (da * inv + 127) / 255) << 24) | ((pr + (dr * inv + 127) / 255) << 16)
+                | ((pg + (dg * inv + 127) / 255) << 8) | (pb + (db * inv + 127) / 255);
+    }
+
+    private int clampX(int x) { return Math.max(0, Math.min(width - 1, x)); }
+
+    private int clampY(int y) { return Math.max(0, Math.min(height - 1, y)); }
+
+    private void grow() {
+        int n = px.length * 2;
+        px = Arrays.copyOf(px, n);
+        py = Arrays.copyOf(py, n);
+        radius = Arrays.copyOf(radius, n);
+        rgb = Arrays.copyOf(rgb, n);
+        alpha = Arrays.copyOf(alpha, n);
+    }
+
+    public int[] getPixels() { return pixels; }
+
+    public long getLastRasterNanos() { return lastRasterNanos; }
+}
@@ -0,0 +1,179 @@
+package com.fbo.graphics;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+
+public final class RenderCommandBuffer {
+    public static final byte CLEAR_RECT = 1;
+    public static final byte FILL_RECT = 2;
+    public static final byte FILL_OVAL = 3;
+    public static final byte FILL_ROUND_RECT = 4;
+    public static final byte DRAW_IMAGE = 5;
+    public static final byte FILL_TEXT = 6;
+    public static final byte STROKE_LINE = 7;
+    public static final byte SAVE = 8;
+    public static final byte RESTORE = 9;
+    public static final byte TRANSLATE = 10;
+    public static final byte ROTATE = 11;
+    public static final byte SCALE = 12;
+    public static final byte SET_ALPHA = 13;
+    public static final byte SET_FILL = 14;
+    public static final byte SET_STROKE = 15;
+    public static final byte SET_LINE_WIDTH = 16;
+    public static final byte SET_FONT = 17;
+    public static final byte SET_TEXT_ALIGN = 18;
+    // draw images between these markers in any order; the executor groups them by texture
+    public static final byte SORT_BEGIN = 19;
+    public static final byte SORT_END = 20;
+    public static final int OPCODE_COUNT = 21;
+
+    private byte[] ops = new byte[256];
+    private int[] operandStart = new int[256];
+    private int[] refIndex = new int[256];
+    private int opCount = 0;
+
+    private float[] operands = new float[1024];
+    private int operandCount = 0;
+
+    private Object[] refs = new Object[64];
+    private int refCount = 0;
+
+    // images are interned per frame so equal textures share a handle the executor can sort on
+    private Image[] images = new Image[16];
+    private int imageCount = 0;
+
+    public void reset() {
+        opCount = 0;
+        operandCount = 0;
+        Arrays.fill(refs, 0, refCount, null);
+        refCount = 0;
+        Arrays.fill(images, 0, imageCount, null);
+        imageCount = 0;
+    }
+
+    public int size() { return opCount; }
+
+    public byte op(int i) { return ops[i]; }
+
+    public float operand(int i, int k) { return operands[operandStart[i] + k]; }
+
+    public int handle(int i) { return refIndex[i]; }
+
+    public Object ref(int i) { return refs[refIndex[i]]; }
+
+    public Image image(int i) { return images[refIndex[i]]; }
+
+    public void clearRect(double x, double y, double w, double h) { rect(CLEAR_RECT, x, y, w, h); }
+
+    public void fillRect(double x, double y, double w, double h) { rect(FILL_RECT, x, y, w, h); }
+
+    public void fillOval(double x, double y, double w, double h) { rect(FILL_OVAL, x, y, w, h); }
+
+    public void fillRoundRect(double x, double y, double w, double h, double arcW, double arcH) {
+        begin(FILL_ROUND_RECT, 6, -1);
+        push(x); push(y); push(w); push(h); push(arcW); push(arcH);
+    }
+
+    public void drawImage(Image img, double x, double y, double w, double h) {
+        begin(DRAW_IMAGE, 4, internImage(img));
+        push(x); push(y); push(w); push(h);
+    }
+
+    public void fillText(String text, double x, double y) {
+        begin(FILL_TEXT, 2, addRef(text));
+        push(x); push(y);
+    }
+
+    public void strokeLine(double x1, double y1, double x2, double y2) { rect(STROKE_LINE, x1, y1, x2, y2); }
+
+    public void save() { begin(SAVE, 0, -1); }
+
+    public void restore() { begin(RESTORE, 0, -1); }
+
+    public void translate(double x, double y) {
+        begin(TRANSLATE, 2, -1);
+        push(x); push(y);
+    }
+
+    public void rotate(double degrees) {
+        begin(ROTATE, 1, -1);
+        push(degrees);
+    }
+
+    public void scale(double x, double y) {
+        begin(SCALE, 2, -1);
+        push(x); push(y);
+    }
+
+    public void setGlobalAlpha(double alpha) {
+        begin(SET_ALPHA, 1, -1);
+        push(alpha);
+    }
+
+    public void setFill(Paint p) { begin(SET_FILL, 0, addRef(p)); }
+
+    public void setStroke(Paint p) { begin(SET_STROKE, 0, addRef(p)); }
+
+    public void setLineWidth(double w) {
+        begin(SET_LINE_WIDTH, 1, -1);
+        push(w);
+    }
+
+    public void setFont(Font f) { begin(SET_FONT, 0, addRef(f)); }
+
+    public void setTextAlign(TextAlignment align) { begin(SET_TEXT_ALIGN, 0, addRef(align)); }
+
+    public void beginSorted() { begin(SORT_BEGIN, 0, -1); }
+
+    public void endSorted() { begin(SORT_END, 0, -1); }
+
+    public int count(byte opcode) {
+        int n = 0;
+        for (int i = 0; i < opCount; i++) if (ops[i] == opcode) n++;
+        return n;
+    }
+
+    private void rect(byte op, double a, double b, double c, double d) {
+        begin(op, 4, -1);
+        push(a); push(b); push(c); push(d);
+    }
+
+    private void begin(byte op, int operandsNeeded, int ref) {
+        if (opCount == ops.length) {
+            int n = ops.length * 2;
+            ops = Arrays.copyOf(ops, n);
+            operandStart = Arrays.copyOf(operandStart, n);
+            refIndex = Arrays.copyOf(refIndex, n);
+        }
+        if (operandCount + operandsNeeded > operands.length) {
+            operands = Arrays.copyOf(operands, Math.max(operands.length * 2, operandCount + operandsNeeded));
+        }
+        ops[opCount] = op;
+        operandStart[opCount] = operandCount;
+        refIndex[opCount] = ref;
+        opCount++;
+    }
+
+    private void push(double v) {
+        operands[operandCount++] = (float) v;
+    }
+
+    private int addRef(Object o) {
+        if (refCount == refs.length) refs = Arrays.copyOf(refs, refs.length * 2);
+        refs[refCount] = o;
+        return refCount++;
+    }
+
+    private int internImage(Image img) {
+        for (int i = 0; i < imageCount; i++) {
+            if (images[i] == img) return i;
+        }
+        if (imageCount == images.length) images = Arrays.copyOf(images, images.length * 2);
+        images[imageCount] = img;
+        return imageCount++;
+    }
+}
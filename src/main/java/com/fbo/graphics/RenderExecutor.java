@@ -0,0 +1,223 @@
+package com.fbo.graphics;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static com.fbo.graphics.RenderCommandBuffer.*;
+
+public final class RenderExecutor {
+    private final TrackedGraphics g = new TrackedGraphics();
+
+    // transform knowledge for culling, one entry per save() depth
+    private double[] tx = new double[8];
+    private double[] ty = new double[8];
+    // how much we still know about the transform for culling: translation only, rotated/scaled about
+    // (tx, ty) within a factor of reach, or unknown once a translate follows a rotation
+    private static final byte AXIS_ALIGNED = 0;
+    private static final byte ROTATED = 1;
+    private static final byte UNKNOWN_TRANSFORM = 2;
+    private byte[] transform = new byte[8];
+    private double[] reach = new double[8];
+    private int depth = 0;
+
+    private int[] sortScratch = new int[64];
+
+    private int executed = 0;
+    private int culled = 0;
+    // summed over every frame replayed, for the performance report
+    private long frames, issuedTotal, elidedTotal, flattenedTotal;
+
+    public void replay(RenderCommandBuffer cb, GraphicsContext gc, double viewW, double viewH) {
+        executed = culled = 0;
+        depth = 0;
+        tx[0] = ty[0] = 0;
+        transform[0] = AXIS_ALIGNED;
+        reach[0] = 1;
+
+        g.begin(gc);
+        int n = cb.size();
+        for (int i = 0; i < n; i++) {
+            if (cb.op(i) == SORT_BEGIN) {
+                int end = i + 1;
+                while (end < n && cb.op(end) != SORT_END) end++;
+                replaySorted(cb, i + 1, end, viewW, viewH);
+                i = end;
+            } else {
+                execute(cb, i, viewW, viewH);
+            }
+        }
+        g.end();
+        frames++;
+        issuedTotal += g.getIssued();
+        elidedTotal += g.getElided();
+        flattenedTotal += g.getFlattened();
+    }
+
+    public String report() {
+        if (frames == 0) return "";
+        double issued = issuedTotal / (double) frames, elided = elidedTotal / (double) frames;
+        return String.format(Locale.ROOT, "graphics context over %d frames, per frame: %.1f calls issued, %.1f elided"
+                        + " (%.0f%%), %.1f save/restore pairs flattened%n", frames, issued, elided,
+                100 * elided / Math.max(1e-9, issued + elided), flattenedTotal / (double) frames);
+    }
+
+    private void replaySorted(RenderCommandBuffer cb, int from, int to, double viewW, double viewH) {
+        int count = to - from;
+        boolean imagesOnly = true;
+        for (int i = from; i < to; i++) {
+            if (cb.op(i) != DRAW_IMAGE) { imagesOnly = false; break; }
+        }
+        if (!imagesOnly) {
+            for (int i = from; i < to; i++) execute(cb, i, viewW, viewH);
+            return;
+        }
+
+        if (sortScratch.length < count) sortScratch = new int[Math.max(count, sortScratch.length * 2)];
+        int[] order = sortScratch;
+        // stable insertion sort on texture handle; runs are a handful of pipes
+        for (int k = 0; k < count; k++) {
+            int idx = from + k;
+            int h = cb.handle(idx);
+            int j = k - 1;
+            while (j >= 0 && cb.handle(order[j]) > h) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = idx;
+        }
+        for (int k = 0; k < count; k++) execute(cb, order[k], viewW, viewH);
+    }
+
+    private void execute(RenderCommandBuffer cb, int i, double viewW, double viewH) {
+        byte op = cb.op(i);
+        switch (op) {
+            case CLEAR_RECT:
+            case FILL_RECT:
+            case FILL_OVAL:
+            case DRAW_IMAGE: {
+                double x = cb.operand(i, 0), y = cb.operand(i, 1), w = cb.operand(i, 2), h = cb.operand(i, 3);
+                if (offscreen(x, y, w, h, viewW, viewH)) {
+                    culled++;
+                    return;
+                }
+                if (op == CLEAR_RECT) g.clearRect(x, y, w, h);
+                else if (op == FILL_RECT) g.fillRect(x, y, w, h);
+                else if (op == FILL_OVAL) g.fillOval(x, y, w, h);
+                else g.drawImage(cb.image(i), x, y, w, h);
+                break;
+            }
+            case FILL_ROUND_RECT:
+                g.fillRoundRect(cb.operand(i, 0), cb.operand(i, 1), cb.operand(i, 2), cb.operand(i, 3),
+                        cb.operand(i, 4), cb.operand(i, 5));
+                break;
+            case FILL_TEXT:
+                g.fillText((String) cb.ref(i), cb.operand(i, 0), cb.operand(i, 1));
+                break;
+            case STROKE_LINE:
+                g.strokeLine(cb.operand(i, 0), cb.operand(i, 1), cb.operand(i, 2), cb.operand(i, 3));
+                break;
+            case SAVE:
+                push();
+                g.save();
+                break;
+            case RESTORE:
+                if (depth == 0) return;
+                depth--;
+                g.restore();
+                break;
+            case TRANSLATE: {
+                double x = cb.operand(i, 0), y = cb.operand(i, 1);
+                if (transform[depth] == AXIS_ALIGNED) {
+                    tx[depth] += x;
+                    ty[depth] += y;
+                } else if (x != 0 || y != 0) {
+                    transform[depth] = UNKNOWN_TRANSFORM;
+                }
+                g.translate(x, y);
+                break;
+            }
+            case ROTATE: {
+                double deg = cb.operand(i, 0);
+                if (deg != 0 && transform[depth] == AXIS_ALIGNED) transform[depth] = ROTATED;
+                g.rotate(deg);
+                break;
+            }
+            case SCALE: {
+                double sx = cb.operand(i, 0), sy = cb.operand(i, 1);
+                if (sx != 1 || sy != 1) {
+                    if (transform[depth] == AXIS_ALIGNED) transform[depth] = ROTATED;
+                    reach[depth] *= Math.max(Math.abs(sx), Math.abs(sy));
+                }
+                g.scale(sx, sy);
+                break;
+            }
+            case SET_ALPHA:
+                g.setGlobalAlpha(cb.operand(i, 0));
+                break;
+            case SET_LINE_WIDTH:
+                g.setLineWidth(cb.operand(i, 0));
+                break;
+            case SET_FILL:
+                g.setFill((Paint) cb.ref(i));
+                break;
+            case SET_STROKE:
+                g.setStroke((Paint) cb.ref(i));
+                break;
+            case SET_FONT:
+                g.setFont((Font) cb.ref(i));
+                break;
+            case SET_TEXT_ALIGN:
+                g.setTextAlign((TextAlignment) cb.ref(i));
+                break;
+            default:
+                return;
+        }
+        executed++;
+    }
+
+    private boolean offscreen(double x, double y, double w, double h, double viewW, double viewH) {
+        if (transform[depth] == UNKNOWN_TRANSFORM) return false;
+        if (transform[depth] == ROTATED) {
+            double fx = Math.max(Math.abs(x), Math.abs(x + w));
+            double fy = Math.max(Math.abs(y), Math.abs(y + h));
+            double r = Math.sqrt(fx * fx + fy * fy) * reach[depth];
+            return tx[depth] + r < 0 || ty[depth] + r < 0 || tx[depth] - r > viewW || ty[depth] - r > viewH;
+        }
+        double x0 = Math.min(x, x + w) + tx[depth];
+        double x1 = Math.max(x, x + w) + tx[depth];
+        double y0 = Math.min(y, y + h) + ty[depth];
+        double y1 = Math.max(y, y + h) + ty[depth];
+        return x1 < 0 || y1 < 0 || x0 > viewW || y0 > viewH;
+    }
+
+    private void push() {
+        int next = depth + 1;
+        if (next == tx.length) {
+            int n = tx.length * 2;
+            tx = Arrays.copyOf(tx, n);
+            ty = Arrays.copyOf(ty, n);
+            transform = Arrays.copyOf(transform, n);
+            reach = Arrays.copyOf(reach, n);
+        }
+        tx[next] = tx[depth];
+        ty[next] = ty[depth];
+        transform[next] = transform[depth];
+        reach[next] = reach[depth];
+        depth = next;
+    }
+
+    public int getExecuted() { return executed; }
+
+    public int getCulled() { return culled; }
+
+    public int getElided() { return g.getElided(); }
+
+    public int getIssued() { return g.getIssued(); }
+
+    public int getFlattened() { return g.getFlattened(); }
+}
@@ -0,0 +1,217 @@
+package com.fbo.graphics;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+public final class TrackedGraphics {
+    private static final Object UNKNOWN = new Object();
+
+    private GraphicsContext gc;
+
+    private Object fill = UNKNOWN;
+    private Object stroke = UNKNOWN;
+    private Object font = UNKNOWN;
+    private Object align = UNKNOWN;
+    private double alpha = Double.NaN;
+    private double lineWidth = Double.NaN;
+
+    // save() is deferred: a level only calls gc.save() once something inside it needs restoring.
+    // dx/dy hold the translation applied since the level's save() and before its gc.save(), which
+    // is undone with an inverse translate instead of relying on gc.restore().
+    private boolean[] materialized = new boolean[8];
+    private double[] dx = new double[8];
+    private double[] dy = new double[8];
+    private Object[] savedFill = new Object[8];
+    private Object[] savedStroke = new Object[8];
+    private Object[] savedFont = new Object[8];
+    private Object[] savedAlign = new Object[8];
+    private double[] savedAlpha = new double[8];
+    private double[] savedLineWidth = new double[8];
+    private int depth = 0;
+
+    private int issued = 0;
+    private int elided = 0;
+    private int flattened = 0;
+
+    public void begin(GraphicsContext gc) {
+        this.gc = gc;
+        fill = stroke = font = align = UNKNOWN;
+        alpha = Double.NaN;
+        lineWidth = Double.NaN;
+        depth = 0;
+        issued = elided = flattened = 0;
+    }
+
+    public void setFill(Paint p) {
+        if (Objects.equals(fill, p)) { elided++; return; }
+        materialize();
+        fill = p;
+        gc.setFill(p);
+        issued++;
+    }
+
+    public void setStroke(Paint p) {
+        if (Objects.equals(stroke, p)) { elided++; return; }
+        materialize();
+        stroke = p;
+        gc.setStroke(p);
+        issued++;
+    }
+
+    public void setFont(Font f) {
+        if (Objects.equals(font, f)) { elided++; return; }
+        materialize();
+        font = f;
+        gc.setFont(f);
+        issued++;
+    }
+
+    public void setTextAlign(TextAlignment a) {
+        if (align == a) { elided++; return; }
+        materialize();
+        align = a;
+        gc.setTextAlign(a);
+        issued++;
+    }
+
+    public void setGlobalAlpha(double a) {
+        if (a == alpha) { elided++; return; }
+        materialize();
+        alpha = a;
+        gc.setGlobalAlpha(a);
+        issued++;
+    }
+
+    public void setLineWidth(double w) {
+        if (w == lineWidth) { elided++; return; }
+        materialize();
+        lineWidth = w;
+        gc.setLineWidth(w);
+        issued++;
+    }
+
+    public void save() {
+        int next = depth + 1;
+        if (next == materialized.length) grow();
+        materialized[next] = false;
+        dx[next] = 0;
+        dy[next] = 0;
+        savedFill[next] = fill;
+        savedStroke[next] = stroke;
+        savedFont[next] = font;
+        savedAlign[next] = align;
+        savedAlpha[next] = alpha;
+        savedLineWidth[next] = lineWidth;
+        depth = next;
+    }
+
+    public void restore() {
+        if (depth == 0) return;
+        if (materialized[depth]) {
+            gc.restore();
+            issued++;
+            fill = savedFill[depth];
+            stroke = savedStroke[depth];
+            font = savedFont[depth];
+            align = savedAlign[depth];
+            alpha = savedAlpha[depth];
+            lineWidth = savedLineWidth[depth];
+        } else {
+            elided += 2;
+            flattened++;
+        }
+        double ux = dx[depth], uy = dy[depth];
+        depth--;
+        if (ux != 0 || uy != 0) {
+            gc.translate(-ux, -uy);
+            issued++;
+            for (int d = depth; d > 0 && !materialized[d]; d--) {
+                dx[d] -= ux;
+                dy[d] -= uy;
+            }
+        }
+    }
+
+    public void translate(double x, double y) {
+        if (x == 0 && y == 0) { elided++; return; }
+        for (int d = depth; d > 0 && !materialized[d]; d--) {
+            dx[d] += x;
+            dy[d] += y;
+        }
+        gc.translate(x, y);
+        issued++;
+    }
+
+    public void rotate(double degrees) {
+        if (degrees == 0) { elided++; return; }
+        materialize();
+        gc.rotate(degrees);
+        issued++;
+    }
+
+    public void scale(double x, double y) {
+        if (x == 1 && y == 1) { elided++; return; }
+        materialize();
+        gc.scale(x, y);
+        issued++;
+    }
+
+    public void clearRect(double x, double y, double w, double h) { gc.clearRect(x, y, w, h); issued++; }
+
+    public void fillRect(double x, double y, double w, double h) { gc.fillRect(x, y, w, h); issued++; }
+
+    public void fillOval(double x, double y, double w, double h) { gc.fillOval(x, y, w, h); issued++; }
+
+    public void fillRoundRect(double x, double y, double w, double h, double arcW, double arcH) {
+        gc.fillRoundRect(x, y, w, h, arcW, arcH);
+        issued++;
+    }
+
+    public void drawImage(Image img, double x, double y, double w, double h) { gc.drawImage(img, x, y, w, h); issued++; }
+
+    public void fillText(String text, double x, double y) { gc.fillText(text, x, y); issued++; }
+
+    public void strokeLine(double x1, double y1, double x2, double y2) { gc.strokeLine(x1, y1, x2, y2); issued++; }
+
+    public void end() {
+        while (depth > 0) restore();
+        gc = null;
+    }
+
+    private void materialize() {
+        if (depth == 0 || materialized[depth]) return;
+        // outer deferred levels must be real first so nesting in the GraphicsContext matches ours
+        int first = depth;
+        while (first > 1 && !materialized[first - 1]) first--;
+        for (int d = first; d <= depth; d++) {
+            gc.save();
+            issued++;
+            materialized[d] = true;
+        }
+    }
+
+    private void grow() {
+        int n = materialized.length * 2;
+        materialized = Arrays.copyOf(materialized, n);
+        dx = Arrays.copyOf(dx, n);
+        dy = Arrays.copyOf(dy, n);
+        savedFill = Arrays.copyOf(savedFill, n);
+        savedStroke = Arrays.copyOf(savedStroke, n);
+        savedFont = Arrays.copyOf(savedFont, n);
+        savedAlign = Arrays.copyOf(savedAlign, n);
+        savedAlpha = Arrays.copyOf(savedAlpha, n);
+        savedLineWidth = Arrays.copyOf(savedLineWidth, n);
+    }
+
+    public int getIssued() { return issued; }
+
+    public int getElided() { return elided; }
+
+    public int getFlattened() { return flattened; }
+}
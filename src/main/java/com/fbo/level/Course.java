@@ -0,0 +1,86 @@
+package com.fbo.level;
+
+import com.fbo.ObstacleRing;
+import com.fbo.config.GameConfig;
+
+// The per-tick obstacle side of the world, shared by the game and the headless balance runs: move the obstacles,
+// test the bird against them and the screen, and replace the ones that scroll off with the level's next ones,
+// clamped to what the bird can reach at the current speed.
+public final class Course {
+    public interface Level {
+        // gap centre for obstacle k as a fraction of the playable height
+        double position(int obstacle);
+        int gap(int obstacle);
+    }
+
+    // obstacles placed before the first recycle
+    public static final int INITIAL_OBSTACLES = 4;
+    private static final double FIRST_X = 700;
+    private static final double RECYCLE_X = -20;
+
+    private final ObstacleRing pipes;
+    private Level level;
+    private double spacing;
+    private int nextObstacle = 0;
+    private double speed;
+
+    public Course(ObstacleRing pipes) {
+        this.pipes = pipes;
+    }
+
+    public void start(Level level, double spacing, double baseSpeed, double viewH) {
+        this.level = level;
+        this.spacing = spacing;
+        nextObstacle = 0;
+        speed = baseSpeed;
+        pipes.clear();
+        for (int i = 0; i < INITIAL_OBSTACLES; i++) spawn(FIRST_X + i * spacing, viewH);
+    }
+
+    // true when the bird runs into an obstacle after they have moved at speed for dt
+    public boolean advance(double speed, double dt, double birdX, double birdY, double birdSize) {
+        this.speed = speed;
+        pipes.advance(speed * dt);
+        return pipes.collides(birdX, birdY, birdSize);
+    }
+
+    // one obstacle that left the view replaced past its right edge; call until false, each true is a point
+    public boolean recycle(double viewW, double viewH) {
+        if (!pipes.recycleHead(RECYCLE_X)) return false;
+        spawn(Math.max(viewW, 800) + spacing, viewH);
+        return true;
+    }
+
+    public static boolean outOfBounds(double birdY, double birdSize, double viewH) {
+        return birdY < 0 || birdY + birdSize > height(viewH);
+    }
+
+    private void spawn(double x, double viewH) {
+        int k = nextObstacle++;
+        double y = gapY(level.position(k), viewH);
+        int gap = level.gap(k);
+        int n = pipes.size();
+        if (n > 0) {
+            // chunks are validated at a reference height and estimated speed; recheck against the real ones
+            double prevY = pipes.gapCenterY(n - 1);
+            double tighter = Math.min(gap, pipes.gapSize(n - 1));
+            double dy = y - prevY;
+            if (!Reachability.isReachable(speed, tighter, dy)) {
+                y = prevY + Math.max(-Reachability.maxClimb(speed, tighter),
+                        Math.min(Reachability.maxDrop(speed, tighter), dy));
+            }
+        }
+        pipes.spawn(x, y, gap);
+    }
+
+    private static double gapY(double position, double viewH) {
+        double min = 150 + GameConfig.INITIAL_PIPE_GAP / 2.0;
+        double max = height(viewH) - 150 - GameConfig.INITIAL_PIPE_GAP / 2.0;
+        return min + position * Math.max(0, max - min);
+    }
+
+    // before the stage is shown the view has no height yet
+    private static double height(double viewH) {
+        return viewH <= 0 ? 900 : viewH;
+    }
+}
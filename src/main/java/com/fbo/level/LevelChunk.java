@@ -0,0 +1,35 @@
+package com.fbo.level;
+
+public final class LevelChunk {
+    public static final int SIZE = 8;
+
+    public final long seed;
+    public final int index;
+
+    // gap centre as a fraction of the playable height, so chunks do not depend on the window size
+    private final double[] position = new double[SIZE];
+    private final int[] gap = new int[SIZE];
+    int repaired = 0;
+
+    LevelChunk(long seed, int index) {
+        this.seed = seed;
+        this.index = index;
+    }
+
+    void set(int slot, double position, int gap) {
+        this.position[slot] = position;
+        this.gap[slot] = gap;
+    }
+
+    public int firstObstacle() { return index * SIZE; }
+
+    public double position(int slot) { return position[slot]; }
+
+    public int gap(int slot) { return gap[slot]; }
+
+    public double lastPosition() { return position[SIZE - 1]; }
+
+    public int lastGap() { return gap[SIZE - 1]; }
+
+    public int getRepaired() { return repaired; }
+}
@@ -0,0 +1,265 @@
+package com.fbo.level;
+
+import com.fbo.config.GameConfig;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public final class LevelGenerator implements Course.Level {
+    private static final int CACHE_CHUNKS = 64;
+    private static final long IDLE_PARK_NANOS = 50_000_000L;
+
+    // shared by every generator so replays of the same seed reuse chunks
+    private static final Map<ChunkKey, LevelChunk> cache = new LinkedHashMap<>(CACHE_CHUNKS * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ChunkKey, LevelChunk> eldest) {
+            return size() > CACHE_CHUNKS;
+        }
+    };
+
+    private final int lookAhead;
+    private volatile long seed;
+    // the level after this one, chosen ahead so the worker can build its first chunk before the reset needs it
+    private volatile long upcoming;
+    private volatile int targetChunk = 0;
+    private volatile boolean running = false;
+    private Thread thread;
+
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // seed is the first level nextLevel() starts
+    public LevelGenerator(long seed, int lookAhead) {
+        this.seed = seed;
+        this.upcoming = seed;
+        this.lookAhead = lookAhead;
+    }
+
+    public static long dailySeed() {
+        return LocalDate.now(ZoneOffset.UTC).toEpochDay() * 0x9E3779B97F4A7C15L;
+    }
+
+    // a random seed is never played again, so only a configured one is worth keeping ghosts for
+    public static boolean seedRepeats() {
+        return GameConfig.LEVEL_SEED != null && !GameConfig.LEVEL_SEED.isBlank();
+    }
+
+    public static long seedFromConfig() {
+        String configured = GameConfig.LEVEL_SEED;
+        if (!seedRepeats()) return new SplittableRandom().nextLong();
+        if ("daily".equalsIgnoreCase(configured.trim())) return dailySeed();
+        try {
+            return Long.parseLong(configured.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid level seed '" + configured + "', using its hash");
+            return configured.hashCode();
+        }
+    }
+
+    public void start() {
+        if (thread != null) return;
+        running = true;
+        thread = new Thread(this::run, "level-generator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void halt() {
+        running = false;
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // switches to the prepared level and picks the one after it; returns the new seed
+    public long nextLevel() {
+        long s = upcoming;
+        seed = s;
+        upcoming = seedFromConfig();
+        targetChunk = lookAhead;
+        wake();
+        return s;
+    }
+
+    public long getSeed() { return seed; }
+
+    public long getUpcoming() { return upcoming; }
+
+    // gap centre for obstacle k as a fraction of the playable height
+    @Override
+    public double position(int obstacle) {
+        return chunkFor(obstacle).position(obstacle % LevelChunk.SIZE);
+    }
+
+    @Override
+    public int gap(int obstacle) {
+        return chunkFor(obstacle).gap(obstacle % LevelChunk.SIZE);
+    }
+
+    private LevelChunk chunkFor(int obstacle) {
+        int index = obstacle / LevelChunk.SIZE;
+        int target = index + lookAhead;
+        if (target > targetChunk) {
+            targetChunk = target;
+            wake();
+        }
+        long s = seed;
+        LevelChunk c = cached(s, index);
+        if (c != null) return c;
+        // the generator fell behind: build it here; the result is identical either way
+        misses.incrementAndGet();
+        return chunk(s, index);
+    }
+
+    private void run() {
+        // the first isReachable would otherwise build the table on whichever thread spawns the first pipe
+        ReachabilityTable.get();
+        long cursorSeed = seed;
+        int cursor = 0;
+        while (running) {
+            long s = seed;
+            if (s != cursorSeed) {
+                cursorSeed = s;
+                cursor = 0;
+            }
+            int want = targetChunk;
+            try {
+                if (cursor <= want) {
+                    chunk(s, cursor++);
+                    continue;
+                }
+                long next = upcoming;
+                if (cached(next, 0) == null) {
+                    chunk(next, 0);
+                    continue;
+                }
+            } catch (Exception e) {
+                System.err.println("Level generation failed: " + e.getMessage());
+                cursor++;
+            }
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    private void wake() {
+        Thread t = thread;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    // each chunk continues from its predecessor, so walk back to the nearest one still cached and build forward
+    private LevelChunk chunk(long s, int index) {
+        LevelChunk prev = null;
+        int from = index;
+        while (from >= 0) {
+            prev = cached(s, from);
+            if (prev != null) break;
+            from--;
+        }
+        if (from == index) return prev;
+
+        for (int i = from + 1; i <= index; i++) {
+            LevelChunk c = generateAfter(s, i, prev);
+            synchronized (cache) {
+                LevelChunk raced = cache.putIfAbsent(new ChunkKey(s, i), c);
+                if (raced != null) c = raced;
+                else generated.incrementAndGet();
+            }
+            prev = c;
+        }
+        return prev;
+    }
+
+    private static LevelChunk cached(long s, int index) {
+        synchronized (cache) {
+            return cache.get(new ChunkKey(s, index));
+        }
+    }
+
+    // builds chunk index directly from its predecessor, bypassing the cache and worker thread
+    public static LevelChunk generateAfter(long seed, int index, LevelChunk previous) {
+        if (previous == null) return generate(seed, index, 0.5, GameConfig.INITIAL_PIPE_GAP);
+        return generate(seed, index, previous.lastPosition(), previous.lastGap());
+    }
+
+    static LevelChunk generate(long seed, int index, double prevPosition, int prevGap) {
+        LevelChunk c = new LevelChunk(seed, index);
+        SplittableRandom rand = new SplittableRandom(mix(seed, index));
+        double range = GameConfig.LEVEL_REFERENCE_HEIGHT - 300 - GameConfig.INITIAL_PIPE_GAP;
+
+        for (int slot = 0; slot < LevelChunk.SIZE; slot++) {
+            int k = index * LevelChunk.SIZE + slot;
+            int score = Math.max(0, k - Course.INITIAL_OBSTACLES);
+            double playTime = estimatePlayTime(k);
+            int gap = k < Course.INITIAL_OBSTACLES ? GameConfig.INITIAL_PIPE_GAP : GameConfig.getPipeGap(playTime, score);
+
+            double position = rand.nextDouble();
+            if (k > 0) {
+                double speed = GameConfig.BASE_PIPE_SPEED
+                        * GameConfig.getDifficultyFactor(playTime, score, GameConfig.MAX_DIFFICULTY_MULTIPLIER);
+                int tighter = Math.min(gap, prevGap);
+                double dy = (position - prevPosition) * range;
+                if (!Reachability.isReachable(speed, tighter, dy)) {
+                    double clamped = Math.max(-Reachability.maxClimb(speed, tighter),
+                            Math.min(Reachability.maxDrop(speed, tighter), dy));
+                    position = Math.max(0, Math.min(1, prevPosition + clamped / range));
+                    c.repaired++;
+                }
+            }
+            c.set(slot, position, gap);
+            prevPosition = position;
+            prevGap = gap;
+        }
+        return c;
+    }
+
+    // time until obstacle k reaches the bird at base speed; overestimating it makes validation stricter
+    public static double estimatePlayTime(int k) {
+        return (500 + k * GameConfig.PIPE_SPACING) / GameConfig.BASE_PIPE_SPEED;
+    }
+
+    private static long mix(long seed, int index) {
+        long z = seed + index * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getGenerated() { return generated.get(); }
+
+    public long getMisses() { return misses.get(); }
+
+    private static final class ChunkKey {
+        final long seed;
+        final int index;
+
+        ChunkKey(long seed, int index) {
+            this.seed = seed;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ChunkKey)) return false;
+            ChunkKey k = (ChunkKey) o;
+            return k.seed == seed && k.index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(seed, index);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.fbo.level;
+
+import com.fbo.config.GameConfig;
+
+public final class Reachability {
+    private Reachability() {}
+
+    // seconds between clearing one obstacle and entering the next at the given scroll speed
+    public static double transitTime(double speed) {
+        return (GameConfig.PIPE_SPACING - GameConfig.PIPE_WIDTH) / Math.max(1.0, speed);
+    }
+
+    public static double maxClimb(double speed, double gap) {
+        return ReachabilityTable.get().maxClimb(speed, gap);
+    }
+
+    public static double maxDrop(double speed, double gap) {
+        return ReachabilityTable.get().maxDrop(speed, gap);
+    }
+
+    // positive dy means the next gap is lower on screen
+    public static boolean isReachable(double speed, double gap, double dy) {
+        return ReachabilityTable.get().isReachable(speed, gap, dy);
+    }
+}
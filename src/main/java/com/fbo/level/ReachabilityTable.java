@@ -0,0 +1,144 @@
+package com.fbo.level;
+
+import com.fbo.config.GameConfig;
+
+import java.util.Arrays;
+
+public final class ReachabilityTable {
+    public static final double SPEED_MIN = 80, SPEED_STEP = 25;
+    public static final int SPEED_BUCKETS = 96;
+    public static final double SPEED_MAX = SPEED_MIN + SPEED_BUCKETS * SPEED_STEP;
+    public static final int GAP_MIN = 40, GAP_STEP = 10, GAP_BUCKETS = 37;
+    public static final double DELTA_MIN = -1200, DELTA_STEP = 8;
+    public static final int DELTA_BUCKETS = 301;
+
+    // leave some room for human reaction time on top of perfect flapping
+    private static final double MARGIN = 0.8;
+    private static final double TICK = 1.0 / 120.0;
+
+    // one bit per (speed, gap, delta) cell
+    private final long[] bits = new long[(SPEED_BUCKETS * GAP_BUCKETS * DELTA_BUCKETS + 63) >>> 6];
+    // per speed bucket, before gap slack is added
+    private final float[] climb = new float[SPEED_BUCKETS];
+    private final float[] drop = new float[SPEED_BUCKETS];
+    private final long buildNanos;
+
+    private ReachabilityTable() {
+        long start = System.nanoTime();
+        for (int s = 0; s < SPEED_BUCKETS; s++) {
+            // simulate at the fast end of the bucket so every speed in it is covered
+            simulate(s, SPEED_MIN + (s + 1) * SPEED_STEP);
+            for (int g = 0; g < GAP_BUCKETS; g++) {
+                double slack = slack(GAP_MIN + g * GAP_STEP);
+                for (int d = 0; d < DELTA_BUCKETS; d++) {
+                    double lo = DELTA_MIN + d * DELTA_STEP;
+                    double hi = lo + DELTA_STEP;
+                    // reachable displacements form an interval, so both bucket ends being inside is enough
+                    if (-lo <= climb[s] + slack && hi <= drop[s] + slack) {
+                        int bit = index(s, g, d);
+                        bits[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+        }
+        buildNanos = System.nanoTime() - start;
+    }
+
+    // built on first use without locking the query path, which parallel balancing runs hit hard; the game
+    // has the level generator's worker build it at startup, and BalanceTool before its runs
+    private static final class Holder {
+        static final ReachabilityTable INSTANCE = new ReachabilityTable();
+    }
+
+    public static ReachabilityTable get() {
+        return Holder.INSTANCE;
+    }
+
+    // positive dy means the next gap is lower on screen
+    public boolean isReachable(double speed, double gap, double dy) {
+        if (gap <= GameConfig.BIRD_SIZE) return false;
+        // faster than the table covers: only what staying inside both gaps allows
+        if (speed >= SPEED_MAX) return Math.abs(dy) <= slack(GAP_MIN + gapBucket(gap) * GAP_STEP);
+        int d = (int) Math.floor((dy - DELTA_MIN) / DELTA_STEP);
+        if (d < 0 || d >= DELTA_BUCKETS) return false;
+        int bit = index(speedBucket(speed), gapBucket(gap), d);
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public double maxClimb(double speed, double gap) {
+        return (speed >= SPEED_MAX ? 0 : climb[speedBucket(speed)]) + slack(GAP_MIN + gapBucket(gap) * GAP_STEP);
+    }
+
+    public double maxDrop(double speed, double gap) {
+        return (speed >= SPEED_MAX ? 0 : drop[speedBucket(speed)]) + slack(GAP_MIN + gapBucket(gap) * GAP_STEP);
+    }
+
+    // Bird.update: vy += g * dt; y += vy * dt. A flap sets vy to FLAP_STRENGTH before the next update,
+    // so the only state that matters is how many ticks ago the bird last flapped. Track the lowest and
+    // highest displacement for each such state over the transit between two obstacles.
+    private void simulate(int bucket, double speed) {
+        double g = GameConfig.GRAVITY, flap = GameConfig.FLAP_STRENGTH;
+        int steps = (int) Math.ceil(Reachability.transitTime(speed) / TICK);
+        // start at the apex of a flap, which is how a player usually leaves a gap
+        int apex = (int) Math.round(-flap / g / TICK);
+        int states = apex + steps + 2;
+
+        double[] min = new double[states], max = new double[states];
+        double[] nextMin = new double[states], nextMax = new double[states];
+        Arrays.fill(min, Double.NaN);
+        Arrays.fill(max, Double.NaN);
+        min[apex] = max[apex] = 0;
+
+        for (int step = 0; step < steps; step++) {
+            Arrays.fill(nextMin, Double.NaN);
+            Arrays.fill(nextMax, Double.NaN);
+            for (int n = 0; n < states - 1; n++) {
+                if (Double.isNaN(min[n])) continue;
+                relax(nextMin, nextMax, n + 1, min[n], max[n], flap + g * (n + 1) * TICK);
+                relax(nextMin, nextMax, 1, min[n], max[n], flap + g * TICK);
+            }
+            double[] t = min; min = nextMin; nextMin = t;
+            t = max; max = nextMax; nextMax = t;
+        }
+
+        double lowest = 0, highest = 0;
+        for (int n = 0; n < states; n++) {
+            if (Double.isNaN(min[n])) continue;
+            lowest = Math.min(lowest, min[n]);
+            highest = Math.max(highest, max[n]);
+        }
+        climb[bucket] = (float) (-lowest * MARGIN);
+        drop[bucket] = (float) (highest * MARGIN);
+    }
+
+    private static void relax(double[] min, double[] max, int n, double fromMin, double fromMax, double vy) {
+        double lo = fromMin + vy * TICK, hi = fromMax + vy * TICK;
+        if (Double.isNaN(min[n]) || lo < min[n]) min[n] = lo;
+        if (Double.isNaN(max[n]) || hi > max[n]) max[n] = hi;
+    }
+
+    private static int index(int speed, int gap, int delta) {
+        return (speed * GAP_BUCKETS + gap) * DELTA_BUCKETS + delta;
+    }
+
+    // slower than the table uses the slowest bucket, which has less time and so is stricter; faster never gets here
+    private static int speedBucket(double speed) {
+        int s = (int) Math.floor((speed - SPEED_MIN) / SPEED_STEP);
+        return Math.max(0, Math.min(SPEED_BUCKETS - 1, s));
+    }
+
+    // round gaps down so a bucket never claims more room than the real gap has
+    private static int gapBucket(double gap) {
+        int g = (int) Math.floor((gap - GAP_MIN) / GAP_STEP);
+        return Math.max(0, Math.min(GAP_BUCKETS - 1, g));
+    }
+
+    // the bird may leave from anywhere in one gap and arrive anywhere in the next
+    private static double slack(double gap) {
+        return Math.max(0, gap - GameConfig.BIRD_SIZE);
+    }
+
+    public int getBytes() { return bits.length * Long.BYTES + (climb.length + drop.length) * Float.BYTES; }
+
+    public long getBuildNanos() { return buildNanos; }
+}
@@ -0,0 +1,175 @@
+package com.fbo.perf;
+
+import com.fbo.config.GameConfig;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+// Explains frames that blow the budget. Spans of work that can stall a frame (collections, our own file I/O,
+// media setup) are kept in a short ring; when the gap between two pulses is over budget, whatever overlapped
+// it is attached to the hitch, along with JIT time and class loading since the previous pulse. The last
+// hitches are kept for report(), which F9 prints in game.
+public final class HitchAnalyzer {
+    public static final String GC = "gc";
+    public static final String IO = "io";
+    public static final String MEDIA = "media";
+    public static final String DECODE = "decode";
+
+    private static final int SPAN_CAPACITY = 256;
+    private static final DateTimeFormatter CLOCK = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private static final class Holder {
+        static final HitchAnalyzer INSTANCE = GameConfig.HITCH_BUDGET_MS > 0
+                ? new HitchAnalyzer(GameConfig.HITCH_BUDGET_MS, GameConfig.HITCH_HISTORY) : null;
+    }
+
+    // null when disabled; spans go through the static helpers, which are no-ops then
+    public static HitchAnalyzer get() { return Holder.INSTANCE; }
+
+    public static long begin() {
+        return Holder.INSTANCE != null ? System.nanoTime() : 0;
+    }
+
+    public static void end(String kind, String label, long start) {
+        HitchAnalyzer a = Holder.INSTANCE;
+        if (a != null) a.span(kind, label, start, System.nanoTime(), Thread.currentThread().getName());
+    }
+
+    private final long budgetNanos;
+
+    // spans, oldest overwritten first
+    private final String[] spanKind = new String[SPAN_CAPACITY];
+    private final String[] spanLabel = new String[SPAN_CAPACITY];
+    private final String[] spanThread = new String[SPAN_CAPACITY];
+    private final long[] spanStart = new long[SPAN_CAPACITY];
+    private final long[] spanEnd = new long[SPAN_CAPACITY];
+    private int spanNext, spanCount;
+
+    private final Hitch[] hitches;
+    private int hitchNext, hitchCount;
+    private long frames, hitchTotal;
+    private final Map<String, Integer> causeCounts = new TreeMap<>();
+
+    private final CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+    private final ClassLoadingMXBean classes = ManagementFactory.getClassLoadingMXBean();
+    // GcInfo times are milliseconds of JVM uptime; this puts them on the nanoTime clock the pulses use
+    private final long uptimeOrigin;
+    private long lastPulse, lastJitMs, lastClasses;
+
+    private HitchAnalyzer(double budgetMs, int history) {
+        budgetNanos = (long) (budgetMs * 1e6);
+        hitches = new Hitch[history];
+        uptimeOrigin = System.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter e) e.addNotificationListener(this::onGc, null, null);
+        }
+    }
+
+    private void onGc(Notification n, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(n.getType())) return;
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+        long start = uptimeOrigin + info.getGcInfo().getStartTime() * 1_000_000L;
+        long end = uptimeOrigin + info.getGcInfo().getEndTime() * 1_000_000L;
+        span(GC, info.getGcName() + " (" + info.getGcCause() + ")", start, end, null);
+    }
+
+    private synchronized void span(String kind, String label, long start, long end, String thread) {
+        int i = spanNext;
+        spanKind[i] = kind;
+        spanLabel[i] = label;
+        spanThread[i] = thread;
+        spanStart[i] = start;
+        spanEnd[i] = end;
+        spanNext = (i + 1) % SPAN_CAPACITY;
+        if (spanCount < SPAN_CAPACITY) spanCount++;
+    }
+
+    // once per pulse, with the pulse time AnimationTimer was handed
+    public void frame(long now, int score) {
+        long jitMs = jit != null && jit.isCompilationTimeMonitoringSupported() ? jit.getTotalCompilationTime() : 0;
+        long loaded = classes.getTotalLoadedClassCount();
+        long previous = lastPulse;
+        long jitDelta = jitMs - lastJitMs, classDelta = loaded - lastClasses;
+        lastPulse = now;
+        lastJitMs = jitMs;
+        lastClasses = loaded;
+
+        synchronized (this) {
+            frames++;
+            if (previous == 0 || now - previous <= budgetNanos) return;
+
+            // raw values only: formatting here would load classes and become the next hitch
+            Hitch h = new Hitch(System.currentTimeMillis(), now - previous, score, jitDelta, classDelta);
+            for (int k = 0; k < spanCount; k++) {
+                int i = (spanNext - 1 - k + SPAN_CAPACITY) % SPAN_CAPACITY;
+                if (spanEnd[i] < previous || spanStart[i] > now) continue;
+                h.spans.add(new String[]{spanKind[i], spanLabel[i], spanThread[i]});
+                h.spanNanos.add(spanEnd[i] - spanStart[i]);
+                causeCounts.merge(spanKind[i], 1, Integer::sum);
+            }
+            // compiler threads run beside the game, so this is contention rather than a stall; still the usual
+            // suspect in the first minute
+            if (jitDelta > 0) causeCounts.merge("jit", 1, Integer::sum);
+            if (classDelta > 0) causeCounts.merge("classload", 1, Integer::sum);
+            if (h.spans.isEmpty() && jitDelta <= 0 && classDelta <= 0) causeCounts.merge("unattributed", 1, Integer::sum);
+
+            hitchTotal++;
+            hitches[hitchNext] = h;
+            hitchNext = (hitchNext + 1) % hitches.length;
+            if (hitchCount < hitches.length) hitchCount++;
+        }
+    }
+
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "hitches: %d of %d frames over %.1f ms%n", hitchTotal, frames, budgetNanos / 1e6));
+        if (!causeCounts.isEmpty()) {
+            sb.append("  by cause:");
+            causeCounts.forEach((k, v) -> sb.append(' ').append(k).append('=').append(v));
+            sb.append(System.lineSeparator());
+        }
+        for (int k = 0; k < hitchCount; k++) {
+            Hitch h = hitches[(hitchNext - 1 - k + hitches.length) % hitches.length];
+            List<String> causes = new ArrayList<>();
+            for (int s = 0; s < h.spans.size(); s++) {
+                String[] span = h.spans.get(s);
+                causes.add(String.format(Locale.ROOT, "%s %s %.1f ms%s", span[0], span[1], h.spanNanos.get(s) / 1e6,
+                        span[2] != null ? " [" + span[2] + "]" : ""));
+            }
+            if (h.jitMs > 0) causes.add("jit +" + h.jitMs + " ms compiling");
+            if (h.classes > 0) causes.add("classload +" + h.classes + " classes");
+            LocalTime time = LocalTime.ofInstant(Instant.ofEpochMilli(h.wallMillis), ZoneId.systemDefault());
+            sb.append(String.format(Locale.ROOT, "  %s %7.1f ms  score %-4d %s%n", CLOCK.format(time), h.nanos / 1e6,
+                    h.score, causes.isEmpty() ? "unattributed" : String.join("; ", causes)));
+        }
+        return sb.toString();
+    }
+
+    private static final class Hitch {
+        final long wallMillis, nanos;
+        final int score;
+        final long jitMs, classes;
+        // kind, label, thread
+        final List<String[]> spans = new ArrayList<>(4);
+        final List<Long> spanNanos = new ArrayList<>(4);
+
+        Hitch(long wallMillis, long nanos, int score, long jitMs, long classes) {
+            this.wallMillis = wallMillis;
+            this.nanos = nanos;
+            this.score = score;
+            this.jitMs = jitMs;
+            this.classes = classes;
+        }
+    }
+}
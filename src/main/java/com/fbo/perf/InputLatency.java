@@ -0,0 +1,56 @@
+package com.fbo.perf;
+
+import com.fbo.util.Percentiles;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Input to photon, per session. A flap is timed from the moment its event arrived to the first frame rendered
+// from a snapshot that contains it, and to the start of the pulse after that: the renderer has handed that
+// frame to the display by then, so it is the closest we get to photons without a camera. Scanout adds up to
+// one more refresh on top.
+public final class InputLatency {
+    private final long[] toFrame, toPresent;
+    private int next, count;
+    private long shown, pending;
+
+    public InputLatency(int history) {
+        toFrame = new long[history];
+        toPresent = new long[history];
+    }
+
+    // at the start of every pulse
+    public synchronized void pulse() {
+        if (pending == 0) return;
+        toPresent[(next - 1 + toPresent.length) % toPresent.length] = System.nanoTime() - pending;
+        pending = 0;
+    }
+
+    // after a frame was rendered, with the arrival time of the last flap in the snapshot it showed
+    public synchronized void rendered(long flapInputNanos) {
+        if (flapInputNanos == 0 || flapInputNanos == shown) return;
+        shown = flapInputNanos;
+        pending = flapInputNanos;
+        toFrame[next] = System.nanoTime() - flapInputNanos;
+        toPresent[next] = 0;
+        next = (next + 1) % toFrame.length;
+        if (count < toFrame.length) count++;
+    }
+
+    public synchronized String report() {
+        if (count == 0) return "input latency: no flaps yet" + System.lineSeparator();
+        return String.format(Locale.ROOT, "input latency over the last %d flaps (ms):%n%s%s", count,
+                line("to frame", toFrame), line("to display", toPresent));
+    }
+
+    private String line(String label, long[] ring) {
+        long[] s = Arrays.stream(ring, 0, count).filter(v -> v > 0).sorted().toArray();
+        if (s.length == 0) return "";
+        return String.format(Locale.ROOT, "  %-10s p50 %6.1f  p90 %6.1f  p99 %6.1f  max %6.1f%n", label,
+                pct(s, 50), pct(s, 90), pct(s, 99), s[s.length - 1] / 1e6);
+    }
+
+    private static double pct(long[] sorted, double p) {
+        return Percentiles.of(sorted, p) / 1e6;
+    }
+}
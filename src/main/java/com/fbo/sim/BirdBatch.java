@@ -0,0 +1,132 @@
+package com.fbo.sim;
+
+import com.fbo.ObstacleRing;
+import com.fbo.config.GameConfig;
+
+// Many independent birds sharing one x position, stepped together. Each lane does what Bird.update and
+// the obstacle collision test do for a single bird.
+public final class BirdBatch {
+    public final int capacity;
+    public int size = 0;
+
+    public final double[] y;
+    public final double[] vy;
+    // set by the caller before step(); consumed and cleared by it
+    public final boolean[] flap;
+    // sticky: once a bird hits something it stays dead until reset
+    public final boolean[] dead;
+
+    public double x = 200;
+    public double birdSize = GameConfig.BIRD_SIZE;
+    public double gravity = GameConfig.GRAVITY;
+    public double flapStrength = GameConfig.FLAP_STRENGTH;
+
+    // gaps of the obstacles overlapping x this step
+    final double[] slabTop = new double[8];
+    final double[] slabBottom = new double[8];
+    int slabs = 0;
+
+    // lanes flapping partway through this step, with where and their state before it; the kernels only flap at
+    // the start of a step, so these are stepped again here afterwards
+    private final int[] splitLane;
+    private final double[] splitAt, splitY, splitVy;
+    private final boolean[] splitDead;
+    private int splits = 0;
+
+    private final BirdKernel kernel;
+
+    public BirdBatch(int capacity) {
+        this(capacity, BirdKernel.best());
+    }
+
+    public BirdBatch(int capacity, BirdKernel kernel) {
+        this.capacity = capacity;
+        this.kernel = kernel;
+        y = new double[capacity];
+        vy = new double[capacity];
+        flap = new boolean[capacity];
+        dead = new boolean[capacity];
+        splitLane = new int[capacity];
+        splitAt = new double[capacity];
+        splitY = new double[capacity];
+        splitVy = new double[capacity];
+        splitDead = new boolean[capacity];
+    }
+
+    public int add(double startY) {
+        if (size == capacity) return -1;
+        int i = size++;
+        y[i] = startY;
+        vy[i] = 0;
+        flap[i] = false;
+        dead[i] = false;
+        return i;
+    }
+
+    public void clear() {
+        size = 0;
+        splits = 0;
+    }
+
+    // the lane flaps at this fraction of the next step, the way Bird does when a flap splits its update
+    public void flap(int lane, double at) {
+        if (at <= 0) {
+            flap[lane] = true;
+            return;
+        }
+        int k = 0;
+        while (k < splits && splitLane[k] != lane) k++;
+        if (k == splits) splits++;
+        splitLane[k] = lane;
+        splitAt[k] = at;
+    }
+
+    public void step(double dt, ObstacleRing pipes, double screenH) {
+        slabs = 0;
+        for (int n = 0; n < pipes.size() && slabs < slabTop.length; n++) {
+            double px = pipes.x(n);
+            if (x + birdSize < px || x > px + pipes.width(n)) continue;
+            double half = pipes.gapSize(n) / 2.0;
+            slabTop[slabs] = pipes.gapCenterY(n) - half;
+            slabBottom[slabs] = pipes.gapCenterY(n) + half;
+            slabs++;
+        }
+        for (int k = 0; k < splits; k++) {
+            int i = splitLane[k];
+            splitY[k] = y[i];
+            splitVy[k] = vy[i];
+            splitDead[k] = dead[i];
+        }
+        kernel.step(this, dt, screenH);
+        for (int k = 0; k < splits; k++) stepSplit(k, dt, screenH);
+        splits = 0;
+    }
+
+    // Bird.update for the part before the flap, then the flap and the rest, then the same hit test as the kernels
+    private void stepSplit(int k, double dt, double screenH) {
+        int i = splitLane[k];
+        double before = splitAt[k] * dt;
+        double v = splitVy[k] + gravity * before;
+        double p = splitY[k] + v * before;
+        v = flapStrength + gravity * (dt - before);
+        p += v * (dt - before);
+        vy[i] = v;
+        y[i] = p;
+
+        boolean hit = p < 0 || p + birdSize > screenH;
+        for (int s = 0; s < slabs; s++) hit |= p < slabTop[s] || p + birdSize > slabBottom[s];
+        dead[i] = splitDead[k] | hit;
+    }
+
+    public int countAlive() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            if (!dead[i]) n++;
+        }
+        return n;
+    }
+
+    public String getKernelName() {
+        return kernel.name();
+    }
+}
@@ -0,0 +1,22 @@
+package com.fbo.sim;
+
+public interface BirdKernel {
+    void step(BirdBatch b, double dt, double screenH);
+
+    String name();
+
+    // the module requires jdk.incubator.vector, so it is in the runtime image and resolved at launch; run from the
+    // class path without --add-modules jdk.incubator.vector, or with -Dflappybirdfx.scalarPhysics=true, batches
+    // run the scalar loop
+    static BirdKernel best() {
+        if (!Boolean.getBoolean("flappybirdfx.scalarPhysics")
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorBirdKernel();
+            } catch (LinkageError e) {
+                System.err.println("Vector physics unavailable: " + e.getMessage());
+            }
+        }
+        return new ScalarBirdKernel();
+    }
+}
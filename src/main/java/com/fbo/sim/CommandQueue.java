@@ -0,0 +1,48 @@
+package com.fbo.sim;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class CommandQueue {
+    @FunctionalInterface
+    public interface Handler {
+        void onCommand(int command, long timestampNanos);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int[] commands;
+    private final long[] timestamps;
+
+    // single producer (FX thread) advances tail, single consumer (sim thread) advances head
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong tail = new AtomicLong(0);
+
+    public CommandQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.commands = new int[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    public boolean offer(int command, long timestampNanos) {
+        long t = tail.get();
+        if (t - head.get() >= capacity) return false;
+        int i = (int) (t & mask);
+        commands[i] = command;
+        timestamps[i] = timestampNanos;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    public int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long s = h; s < t; s++) {
+            int i = (int) (s & mask);
+            handler.onCommand(commands[i], timestamps[i]);
+        }
+        if (t != h) head.lazySet(t);
+        return (int) (t - h);
+    }
+}
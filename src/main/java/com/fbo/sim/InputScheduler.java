@@ -0,0 +1,51 @@
+package com.fbo.sim;
+
+// Applies queued commands where they happened inside a step instead of at its start. A step advances the world
+// by whole fixed ticks on behalf of a span of wall-clock time; each command goes ahead of the tick its arrival
+// falls in, with how far into that tick it came, so a flap that came in three quarters of the way through a tick
+// moves the bird from there. The world splits only the bird's step at that point and keeps the tick whole, so a
+// run stays a function of each flap's tick and fraction, which is what ghosts record and replay. Commands that
+// arrived after the span land at its end.
+public final class InputScheduler {
+    private final SimulationThread.World world;
+    private final CommandQueue queue;
+    private final CommandQueue.Handler collect = this::collect;
+    private final int[] commands;
+    private final long[] timestamps;
+    private int count;
+
+    public InputScheduler(SimulationThread.World world, int capacity) {
+        this.world = world;
+        this.queue = new CommandQueue(capacity);
+        this.commands = new int[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    public boolean submit(int command, long timestampNanos) {
+        return queue.offer(command, timestampNanos);
+    }
+
+    // from and to are the wall-clock span (System.nanoTime) the ticks stand for; with no ticks commands wait
+    public void step(long from, long to, int ticks, double dt) {
+        if (ticks <= 0) return;
+        count = 0;
+        queue.drain(collect);
+        double span = Math.max(1, to - from);
+        int c = 0;
+        for (int t = 0; t < ticks; t++) {
+            // in arrival order, one producer stamping them
+            for (; c < count; c++) {
+                double at = ticks * Math.min(1, Math.max(0, (timestamps[c] - from) / span)) - t;
+                if (at >= 1 && t < ticks - 1) break;
+                world.applyCommand(commands[c], timestamps[c], Math.max(0, Math.min(1, at)));
+            }
+            world.step(dt);
+        }
+    }
+
+    private void collect(int command, long timestampNanos) {
+        commands[count] = command;
+        timestamps[count] = timestampNanos;
+        count++;
+    }
+}
@@ -0,0 +1,27 @@
+package com.fbo.sim;
+
+public final class ScalarBirdKernel implements BirdKernel {
+    @Override
+    public void step(BirdBatch b, double dt, double screenH) {
+        double[] y = b.y, vy = b.vy;
+        boolean[] flap = b.flap, dead = b.dead;
+        double g = b.gravity * dt, flapV = b.flapStrength, size = b.birdSize;
+        int slabs = b.slabs;
+
+        for (int i = 0; i < b.size; i++) {
+            double v = flap[i] ? flapV : vy[i];
+            flap[i] = false;
+            v += g;
+            double p = y[i] + v * dt;
+            vy[i] = v;
+            y[i] = p;
+
+            boolean hit = p < 0 || p + size > screenH;
+            for (int s = 0; s < slabs; s++) hit |= p < b.slabTop[s] || p + size > b.slabBottom[s];
+            dead[i] |= hit;
+        }
+    }
+
+    @Override
+    public String name() { return "scalar"; }
+}
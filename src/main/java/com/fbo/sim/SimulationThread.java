@@ -0,0 +1,85 @@
+package com.fbo.sim;
+
+import java.util.concurrent.locks.LockSupport;
+
+public final class SimulationThread {
+    public interface World {
+        // at is where in the coming tick the command arrived, as a fraction of it
+        void applyCommand(int command, long timestampNanos, double at);
+        void step(double dt);
+        void capture(WorldSnapshot into);
+    }
+
+    private final World world;
+    private final double dt;
+    private final long tickNanos;
+    private final InputScheduler inputs;
+    private final TripleBuffer<WorldSnapshot> snapshots;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    public SimulationThread(World world, int tickHz, TripleBuffer<WorldSnapshot> snapshots) {
+        this.world = world;
+        this.dt = 1.0 / tickHz;
+        this.tickNanos = 1_000_000_000L / tickHz;
+        this.snapshots = snapshots;
+        this.inputs = new InputScheduler(world, 256);
+    }
+
+    public void start() {
+        if (thread != null) return;
+        world.capture(snapshots.back());
+        snapshots.publish();
+
+        running = true;
+        thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        long next = System.nanoTime();
+        long window = next;
+        while (running) {
+            // each tick stands for the wall time since the last one, so input keeps its spacing at sub-tick precision
+            long now = System.nanoTime();
+            inputs.step(window, now, 1, dt);
+            window = now;
+            world.capture(snapshots.back());
+            snapshots.publish();
+
+            next += tickNanos;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else if (wait < -tickNanos * 5) {
+                // fell far behind (debugger, suspended laptop): resync instead of burning through the backlog
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    public boolean submit(int command, long timestampNanos) {
+        return inputs.submit(command, timestampNanos);
+    }
+
+    public WorldSnapshot latest() {
+        snapshots.refresh();
+        return snapshots.front();
+    }
+
+    public void halt() {
+        running = false;
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            LockSupport.unpark(t);
+            try {
+                t.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
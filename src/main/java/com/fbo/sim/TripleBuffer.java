@@ -0,0 +1,35 @@
+package com.fbo.sim;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public final class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int DIRTY = 4;
+
+    private final Object[] buffers = new Object[3];
+    // index of the buffer in the middle slot, plus DIRTY when it has not been picked up yet
+    private final AtomicInteger middle = new AtomicInteger(2);
+    private int back = 0;
+    private int front = 1;
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) buffers[i] = factory.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    public T back() { return (T) buffers[back]; }
+
+    public void publish() {
+        back = middle.getAndSet(back | DIRTY) & INDEX_MASK;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T front() { return (T) buffers[front]; }
+
+    public boolean refresh() {
+        if ((middle.get() & DIRTY) == 0) return false;
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+}
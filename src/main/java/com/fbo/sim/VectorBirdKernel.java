@@ -0,0 +1,60 @@
+package com.fbo.sim;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+// Same arithmetic as ScalarBirdKernel, in the same order and without FMA, so both produce identical results.
+public final class VectorBirdKernel implements BirdKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void step(BirdBatch b, double dt, double screenH) {
+        double[] y = b.y, vy = b.vy;
+        boolean[] flap = b.flap, dead = b.dead;
+        double g = b.gravity * dt, size = b.birdSize;
+        int slabs = b.slabs;
+        int n = b.size;
+
+        DoubleVector flapV = DoubleVector.broadcast(SPECIES, b.flapStrength);
+        int bound = SPECIES.loopBound(n);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            VectorMask<Double> flapping = VectorMask.fromArray(SPECIES, flap, i);
+            DoubleVector v = DoubleVector.fromArray(SPECIES, vy, i).blend(flapV, flapping).add(g);
+            DoubleVector p = DoubleVector.fromArray(SPECIES, y, i).add(v.mul(dt));
+            v.intoArray(vy, i);
+            p.intoArray(y, i);
+
+            DoubleVector bottom = p.add(size);
+            VectorMask<Double> hit = p.compare(VectorOperators.LT, 0.0).or(bottom.compare(VectorOperators.GT, screenH));
+            for (int s = 0; s < slabs; s++) {
+                hit = hit.or(p.compare(VectorOperators.LT, b.slabTop[s]))
+                        .or(bottom.compare(VectorOperators.GT, b.slabBottom[s]));
+            }
+            hit.or(VectorMask.fromArray(SPECIES, dead, i)).intoArray(dead, i);
+        }
+        Arrays.fill(flap, 0, bound, false);
+
+        // tail lanes
+        double flapScalar = b.flapStrength;
+        for (; i < n; i++) {
+            double v = flap[i] ? flapScalar : vy[i];
+            flap[i] = false;
+            v += g;
+            double p = y[i] + v * dt;
+            vy[i] = v;
+            y[i] = p;
+
+            boolean hit = p < 0 || p + size > screenH;
+            for (int s = 0; s < slabs; s++) hit |= p < b.slabTop[s] || p + size > b.slabBottom[s];
+            dead[i] |= hit;
+        }
+    }
+
+    @Override
+    public String name() { return "vector/" + SPECIES.length() + "x64"; }
+}
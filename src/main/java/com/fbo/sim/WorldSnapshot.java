@@ -0,0 +1,24 @@
+package com.fbo.sim;
+
+import com.fbo.Bird;
+import com.fbo.ObstacleRing;
+import com.fbo.config.GameConfig;
+import com.fbo.ghost.GhostFrame;
+import com.fbo.graphics.AssetManager;
+
+public final class WorldSnapshot {
+    public final Bird bird;
+    public final ObstacleRing obstacles = new ObstacleRing(GameConfig.OBSTACLE_CAPACITY);
+    public final GhostFrame ghosts = new GhostFrame(GameConfig.MAX_GHOSTS);
+
+    public int score = 0;
+    public boolean gameOver = false;
+    public double totalPlayTime = 0;
+    public double shakeX = 0, shakeY = 0;
+    public long tick = 0;
+    public long flapInputNanos = 0;
+
+    public WorldSnapshot(AssetManager assets) {
+        this.bird = new Bird(GameConfig.BIRD_SIZE, assets);
+    }
+}
@@ -0,0 +1,20 @@
+package com.fbo.util;
+
+// Nearest-rank percentiles of sorted samples: always a value that was observed, so a p99 of 100 samples is the
+// second worst. Empty samples give 0.
+public final class Percentiles {
+    private Percentiles() {}
+
+    public static double of(double[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[rank(sorted.length, p)];
+    }
+
+    public static long of(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[rank(sorted.length, p)];
+    }
+
+    private static int rank(int n, double p) {
+        int rank = (int) Math.ceil(p / 100 * n);
+        return Math.max(0, Math.min(n - 1, rank - 1));
+    }
+}
@@ -1,5 +1,7 @@
 package com.fbo.util;
 
+import com.fbo.assets.AssetArchive;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -9,8 +11,20 @@ import java.nio.file.StandardCopyOption;
 public final class ResourceUtils {
     private ResourceUtils() {}
 
+    // from the packed archive when the runtime has one, the classpath otherwise
+    public static InputStream openResource(String resourcePath) {
+        AssetArchive archive = AssetArchive.get();
+        if (archive != null && archive.contains(resourcePath)) return archive.open(resourcePath);
+        return ResourceUtils.class.getResourceAsStream(resourcePath);
+    }
+
     public static Path copyResourceToTemp(String resourcePath, String suffix) {
         if (resourcePath == null) return null;
+        AssetArchive archive = AssetArchive.get();
+        if (archive != null && archive.contains(resourcePath)) {
+            Path extracted = archive.extract(resourcePath);
+            if (extracted != null) return extracted;
+        }
         try (InputStream is = ResourceUtils.class.getResourceAsStream(resourcePath)) {
             if (is == null) return null;
             String suf = (suffix == null || suffix.isEmpty()) ? ".tmp" : suffix;
@@ -0,0 +1,32 @@
+package com.fbo.util;
+
+import com.fbo.config.GameConfig;
+
+import java.time.Instant;
+
+// Wall-clock milestones from launch to the first frame, for StartupHarness. Epoch microseconds, so the harness
+// can subtract the time it launched the process at. Only recorded on launches that exit after the first frame.
+public final class StartupTrace {
+    private StartupTrace() {}
+
+    public static final String PREFIX = "Startup trace:";
+
+    private static final StringBuilder marks = new StringBuilder();
+
+    public static synchronized void mark(String name) {
+        if (!GameConfig.EXIT_AFTER_FIRST_FRAME) return;
+        if (marks.length() == 0) {
+            // the OS start time of the process, to clock-tick precision: the launcher or VM before any Java runs
+            ProcessHandle.current().info().startInstant().ifPresent(t -> append("process_start", t));
+        }
+        append(name, Instant.now());
+    }
+
+    private static void append(String name, Instant t) {
+        marks.append(' ').append(name).append('=').append(t.getEpochSecond() * 1_000_000 + t.getNano() / 1000);
+    }
+
+    public static synchronized String line() {
+        return PREFIX + marks;
+    }
+}
@@ -3,6 +3,11 @@ module com.fbo.flappybirdfx {
     requires javafx.fxml;
     requires javafx.graphics;
     requires javafx.media;
+    requires java.desktop;
+    requires java.management;
+    requires jdk.management;
+    // not static: jlink only takes the modules the app requires, and the packaged app should get the vector kernel
+    requires jdk.incubator.vector;
 
     exports com.fbo;
     opens com.fbo to javafx.fxml;
@@ -0,0 +1,93 @@
+package com.fbo.audio;
+
+import com.fbo.util.ResourceUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The mixer rendered into memory, against the WAV read straight into the mixer's format by javax.sound.
+class SoftwareMixerTest {
+    private static final int PERIOD_SAMPLES = SoftwareMixer.PERIOD_FRAMES * SoftwareMixer.CHANNELS;
+
+    private static PcmClip coin;
+    private static short[] reference;
+
+    @BeforeAll
+    static void decode() throws Exception {
+        try (InputStream in = ResourceUtils.openResource("/media/coin.wav")) {
+            assertNotNull(in, "coin.wav is missing");
+            coin = PcmClip.decode("/media/coin.wav", in);
+        }
+        assertNotNull(coin, "coin.wav did not decode");
+        try (InputStream in = ResourceUtils.openResource("/media/coin.wav");
+             AudioInputStream wav = AudioSystem.getAudioInputStream(new BufferedInputStream(in));
+             AudioInputStream pcm = AudioSystem.getAudioInputStream(SoftwareMixer.FORMAT, wav)) {
+            byte[] bytes = pcm.readAllBytes();
+            reference = samples(bytes, bytes.length);
+        }
+    }
+
+    @Test
+    void oneVoiceIsBitExact() {
+        assertMixed(render(new SoftwareMixer(), 1), 1, 0);
+    }
+
+    @Test
+    void voicesSumAndClip() {
+        assertMixed(render(new SoftwareMixer(), 2), 2, 0);
+    }
+
+    @Test
+    void duckedVoiceSettlesAtTheDuckedGain() {
+        SoftwareMixer mixer = new SoftwareMixer();
+        mixer.duck(true);
+        // well past the 30 ms ramp before the voice starts
+        byte[] period = new byte[PERIOD_SAMPLES * 2];
+        for (int i = 0; i < SoftwareMixer.SAMPLE_RATE / 10 / SoftwareMixer.PERIOD_FRAMES; i++) {
+            mixer.render(period, SoftwareMixer.PERIOD_FRAMES);
+        }
+        assertMixed(render(mixer, 1), 0.3, 1);
+    }
+
+    @Test
+    void stopFreesTheVoice() {
+        SoftwareMixer mixer = new SoftwareMixer();
+        long id = mixer.play(coin, 1.0, SoftwareMixer.SFX);
+        assertEquals(1, mixer.activeVoices());
+        mixer.stop(id);
+        assertEquals(0, mixer.activeVoices());
+    }
+
+    // every period the clip spans, with that many voices of it started together
+    private static short[] render(SoftwareMixer mixer, int voices) {
+        for (int v = 0; v < voices; v++) mixer.play(coin, 1.0, SoftwareMixer.SFX);
+        int periods = Math.ceilDiv(reference.length, PERIOD_SAMPLES);
+        byte[] period = new byte[PERIOD_SAMPLES * 2];
+        short[] out = new short[periods * PERIOD_SAMPLES];
+        for (int p = 0; p < periods; p++) {
+            mixer.render(period, SoftwareMixer.PERIOD_FRAMES);
+            System.arraycopy(samples(period, period.length), 0, out, p * PERIOD_SAMPLES, PERIOD_SAMPLES);
+        }
+        return out;
+    }
+
+    private static void assertMixed(short[] mixed, double gain, int tolerance) {
+        for (int i = 0; i < mixed.length; i++) {
+            int ref = i < reference.length ? reference[i] : 0;
+            long want = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(ref * gain)));
+            if (Math.abs(mixed[i] - want) > tolerance) fail("sample " + i + " is " + mixed[i] + ", expected " + want);
+        }
+    }
+
+    private static short[] samples(byte[] pcm, int length) {
+        short[] out = new short[length / 2];
+        for (int i = 0; i < out.length; i++) out[i] = (short) ((pcm[2 * i] & 0xff) | (pcm[2 * i + 1] << 8));
+        return out;
+    }
+}
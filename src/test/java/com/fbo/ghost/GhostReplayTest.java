@@ -0,0 +1,146 @@
+package com.fbo.ghost;
+
+import com.fbo.Bird;
+import com.fbo.ObstacleRing;
+import com.fbo.config.GameConfig;
+import com.fbo.sim.InputScheduler;
+import com.fbo.sim.SimulationThread;
+import com.fbo.sim.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A game played through the input scheduler on the fixed tick, with flaps arriving at arbitrary points inside
+// ticks, then raced as a ghost: the ghost has to retrace the bird exactly, flaps split where they landed, and die
+// on the same tick.
+class GhostReplayTest {
+    private static final double DT = 1.0 / GameConfig.SIM_TICK_HZ;
+    private static final double SCREEN_H = 900;
+    private static final double BIRD_X = 200;
+    private static final int MAX_TICKS = 60 * GameConfig.SIM_TICK_HZ;
+    private static final long SEED = 0x5eedL;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordedRunReplaysToTheSameDeathTick() {
+        Course live = new Course(true);
+        InputScheduler inputs = new InputScheduler(live, 256);
+        Random player = new Random(7);
+        long tickNanos = (long) (DT * 1e9);
+        long now = 0;
+        while (!live.dead && live.ticks < MAX_TICKS) {
+            // the bot aims for the next gap but twitches often enough to die
+            if (live.bird.getY() > live.target() && player.nextInt(3) == 0 || player.nextInt(40) == 0) {
+                inputs.submit(Course.CMD_FLAP, now + player.nextInt((int) tickNanos));
+            }
+            inputs.step(now, now + tickNanos, 1, DT);
+            now += tickNanos;
+        }
+        assertTrue(live.dead, "the bot survived " + MAX_TICKS + " ticks");
+        GhostRun run = live.recorder.finish("player", live.score, live.ticks);
+        assertTrue(run.flapCount() > 10, "only " + run.flapCount() + " flaps");
+        assertTrue(Arrays.stream(run.flapAt).anyMatch(at -> at > 0), "every flap landed at the start of its tick");
+
+        assertReplays(run, live.trail);
+
+        GhostStore store = new GhostStore(dir, 4);
+        store.submit(run);
+        List<GhostRun> loaded = new GhostStore(dir, 4).load(SEED).runs;
+        assertEquals(1, loaded.size());
+        assertEquals(run.endTick, loaded.get(0).endTick);
+        assertArrayEquals(run.flapTicks, loaded.get(0).flapTicks);
+        assertArrayEquals(run.flapAt, loaded.get(0).flapAt);
+        assertReplays(loaded.get(0), live.trail);
+    }
+
+    private static void assertReplays(GhostRun run, double[] trail) {
+        Course replay = new Course(false);
+        replay.ghosts.start(List.of(run), true, BIRD_X, replay.bird.getY());
+        GhostFrame frame = new GhostFrame(1);
+        while (replay.ticks < run.endTick) {
+            replay.step(DT);
+            frame.copyFrom(replay.ghosts);
+            int tick = replay.ticks;
+            assertEquals(trail[tick - 1], frame.y[0], 0.0, "ghost left the recorded path on tick " + tick);
+            assertEquals(tick == run.endTick, frame.dead[0], "ghost dead state on tick " + tick);
+        }
+    }
+
+    // FlappyBirdFX.update reduced to what decides a death: one bird, a seeded course at a constant speed,
+    // and the ghosts stepped after the obstacles move
+    private static final class Course implements SimulationThread.World {
+        static final int CMD_FLAP = 1;
+
+        final Bird bird = new Bird(GameConfig.BIRD_SIZE, null);
+        final ObstacleRing pipes = new ObstacleRing(GameConfig.OBSTACLE_CAPACITY);
+        final GhostRecorder recorder = new GhostRecorder();
+        final GhostRace ghosts = new GhostRace(1);
+        final Random level = new Random(SEED);
+        final boolean playing;
+        double[] trail = new double[1024];
+        int ticks, score;
+        boolean dead;
+        double flapAt = -1;
+
+        Course(boolean playing) {
+            this.playing = playing;
+            bird.setX(BIRD_X);
+            for (int i = 0; i < 4; i++) spawn(700 + i * GameConfig.PIPE_SPACING);
+            recorder.begin(SEED, 1.0, 1280, SCREEN_H);
+        }
+
+        double target() {
+            for (int n = 0; n < pipes.size(); n++) {
+                if (pipes.x(n) + pipes.width(n) >= BIRD_X) return pipes.gapCenterY(n);
+            }
+            return SCREEN_H / 2;
+        }
+
+        private void spawn(double x) {
+            pipes.spawn(x, 300 + level.nextInt(300), 220);
+        }
+
+        @Override
+        public void applyCommand(int command, long timestampNanos, double at) {
+            if (command == CMD_FLAP && !dead && flapAt < 0) {
+                flapAt = at;
+                recorder.flap(ticks, at);
+            }
+        }
+
+        @Override
+        public void step(double dt) {
+            int tick = ticks++;
+            if (flapAt < 0) {
+                bird.update(dt);
+            } else {
+                double before = flapAt * dt;
+                flapAt = -1;
+                bird.update(before);
+                bird.flap();
+                bird.update(dt - before);
+            }
+            pipes.advance(GameConfig.BASE_PIPE_SPEED * dt);
+            if (playing && pipes.collides(BIRD_X, bird.getY(), bird.getSize())) dead = true;
+            ghosts.step(tick, dt, pipes, SCREEN_H);
+            while (pipes.recycleHead(-20)) {
+                spawn(1280 + GameConfig.PIPE_SPACING);
+                score++;
+            }
+            if (playing && (bird.getY() < 0 || bird.getY() + bird.getSize() > SCREEN_H)) dead = true;
+            if (tick == trail.length) trail = Arrays.copyOf(trail, tick * 2);
+            trail[tick] = bird.getY();
+        }
+
+        @Override
+        public void capture(WorldSnapshot into) {}
+    }
+}
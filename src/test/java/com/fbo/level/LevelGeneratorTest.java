@@ -0,0 +1,70 @@
+package com.fbo.level;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A level is a function of its seed: built ahead by the worker, on a miss, or starting from a chunk deep in the
+// level, it has to come out the same as building each chunk from the one before it. Seeds differ per test
+// because the chunk cache is shared.
+class LevelGeneratorTest {
+    private static final int CHUNKS = 12;
+
+    @Test
+    void missesBuildTheLevelChunkByChunk() {
+        long seed = 0x1e7e1L;
+        LevelGenerator levels = new LevelGenerator(seed, 3);
+        assertEquals(seed, levels.nextLevel());
+        assertLevel(seed, levels, CHUNKS);
+        assertTrue(levels.getMisses() > 0);
+    }
+
+    @Test
+    void aMissDeepInTheLevelWalksBackToTheStart() {
+        long seed = 0x1e7e2L;
+        LevelGenerator levels = new LevelGenerator(seed, 3);
+        levels.nextLevel();
+        int deep = (CHUNKS - 1) * LevelChunk.SIZE;
+        LevelChunk[] reference = reference(seed);
+        assertEquals(reference[CHUNKS - 1].position(0), levels.position(deep));
+        assertEquals(CHUNKS, levels.getGenerated());
+        assertLevel(seed, levels, CHUNKS);
+    }
+
+    @Test
+    void workerBuildsAheadWithoutMisses() throws InterruptedException {
+        long seed = 0x1e7e3L;
+        int lookAhead = 4;
+        LevelGenerator levels = new LevelGenerator(seed, lookAhead);
+        levels.start();
+        try {
+            levels.nextLevel();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (levels.getGenerated() <= lookAhead && System.nanoTime() < deadline) Thread.sleep(1);
+            assertLevel(seed, levels, lookAhead + 1);
+            assertEquals(0, levels.getMisses());
+        } finally {
+            levels.halt();
+        }
+    }
+
+    // the first chunks of the level
+    private static void assertLevel(long seed, LevelGenerator levels, int chunks) {
+        LevelChunk[] reference = reference(seed);
+        for (int c = 0; c < chunks; c++) {
+            for (int slot = 0; slot < LevelChunk.SIZE; slot++) {
+                int k = c * LevelChunk.SIZE + slot;
+                assertEquals(reference[c].position(slot), levels.position(k), "position of obstacle " + k);
+                assertEquals(reference[c].gap(slot), levels.gap(k), "gap of obstacle " + k);
+            }
+        }
+    }
+
+    private static LevelChunk[] reference(long seed) {
+        LevelChunk[] chunks = new LevelChunk[CHUNKS];
+        for (int i = 0; i < CHUNKS; i++) chunks[i] = LevelGenerator.generateAfter(seed, i, i > 0 ? chunks[i - 1] : null);
+        return chunks;
+    }
+}
@@ -0,0 +1,111 @@
+package com.fbo.sim;
+
+import com.fbo.Bird;
+import com.fbo.ObstacleRing;
+import com.fbo.config.GameConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Lanes of a batch against Bird.update and the obstacle test run per bird, and the kernels against each other.
+// The lane count is not a multiple of any vector width, so the vector kernel's tail loop runs too. Some flaps land
+// partway through a step, the way the input scheduler places them.
+class BirdBatchTest {
+    private static final double DT = 1.0 / GameConfig.SIM_TICK_HZ;
+    private static final double SCREEN_H = 900;
+    private static final int LANES = 37;
+    private static final int TICKS = 2 * GameConfig.SIM_TICK_HZ;
+
+    @Test
+    void scalarLanesStepLikeBirds() {
+        ObstacleRing pipes = course();
+        BirdBatch batch = new BirdBatch(LANES, new ScalarBirdKernel());
+        Bird[] birds = new Bird[LANES];
+        boolean[] dead = new boolean[LANES];
+        for (int i = 0; i < LANES; i++) {
+            birds[i] = new Bird(GameConfig.BIRD_SIZE, null);
+            birds[i].setX(batch.x);
+            batch.add(birds[i].getY());
+        }
+        boolean[][] flaps = flaps();
+        for (int t = 0; t < TICKS; t++) {
+            pipes.advance(GameConfig.BASE_PIPE_SPEED * DT);
+            for (int i = 0; i < LANES; i++) {
+                Bird b = birds[i];
+                double at = flapAt(t, i);
+                if (!flaps[t][i]) {
+                    b.update(DT);
+                } else if (at == 0) {
+                    b.flap();
+                    b.update(DT);
+                } else {
+                    b.update(at * DT);
+                    b.flap();
+                    b.update(DT - at * DT);
+                }
+                dead[i] |= pipes.collides(b.getX(), b.getY(), b.getSize()) || b.getY() < 0 || b.getY() + b.getSize() > SCREEN_H;
+                if (flaps[t][i]) batch.flap(i, at);
+            }
+            batch.step(DT, pipes, SCREEN_H);
+            for (int i = 0; i < LANES; i++) {
+                assertEquals(birds[i].getY(), batch.y[i], 0.0, "lane " + i + " y on tick " + t);
+                assertEquals(dead[i], batch.dead[i], "lane " + i + " dead on tick " + t);
+            }
+        }
+        assertTrue(batch.countAlive() < LANES, "nobody hit anything");
+    }
+
+    @Test
+    void vectorKernelMatchesScalar() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "jdk.incubator.vector not loaded");
+        ObstacleRing scalarPipes = course(), vectorPipes = course();
+        BirdBatch scalar = new BirdBatch(LANES, new ScalarBirdKernel());
+        BirdBatch vector = new BirdBatch(LANES, new VectorBirdKernel());
+        for (int i = 0; i < LANES; i++) {
+            scalar.add(300);
+            vector.add(300);
+        }
+        boolean[][] flaps = flaps();
+        for (int t = 0; t < TICKS; t++) {
+            scalarPipes.advance(GameConfig.BASE_PIPE_SPEED * DT);
+            vectorPipes.advance(GameConfig.BASE_PIPE_SPEED * DT);
+            System.arraycopy(flaps[t], 0, scalar.flap, 0, LANES);
+            System.arraycopy(flaps[t], 0, vector.flap, 0, LANES);
+            scalar.step(DT, scalarPipes, SCREEN_H);
+            vector.step(DT, vectorPipes, SCREEN_H);
+            for (int i = 0; i < LANES; i++) {
+                assertEquals(scalar.y[i], vector.y[i], 0.0, "lane " + i + " y on tick " + t);
+                assertEquals(scalar.vy[i], vector.vy[i], 0.0, "lane " + i + " vy on tick " + t);
+                assertEquals(scalar.dead[i], vector.dead[i], "lane " + i + " dead on tick " + t);
+                assertFalse(vector.flap[i], "flap not consumed");
+            }
+        }
+    }
+
+    // close enough that the birds reach them inside TICKS, with gaps some lanes miss
+    private static ObstacleRing course() {
+        ObstacleRing pipes = new ObstacleRing(GameConfig.OBSTACLE_CAPACITY);
+        pipes.spawn(300, 320, 200);
+        pipes.spawn(300 + GameConfig.PIPE_SPACING / 2, 420, 160);
+        return pipes;
+    }
+
+    // every third flap at the start of its step, the rest somewhere inside it
+    private static double flapAt(int tick, int lane) {
+        int h = tick * 31 + lane;
+        return h % 3 == 0 ? 0 : (h % 97) / 97.0;
+    }
+
+    private static boolean[][] flaps() {
+        SplittableRandom rand = new SplittableRandom(7);
+        boolean[][] f = new boolean[TICKS][LANES];
+        for (int i = 0; i < LANES; i++) {
+            int every = 30 + rand.nextInt(40);
+            for (int t = rand.nextInt(every); t < TICKS; t += every) f[t][i] = true;
+        }
+        return f;
+    }
+}
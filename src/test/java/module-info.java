@@ -1,5 +0,0 @@
-module com.fbo.FlappyBirdFX.tests {
-    requires com.fbo.flappybirdfx;
-    requires javafx.controls;
-    requires javafx.fxml;
-}